@@ -23,5 +23,13 @@ public class MessageConstant {
     public static final String DISH_BE_RELATED_BY_SETMEAL = "当前菜品关联了套餐,不能删除";
     public static final String ORDER_STATUS_ERROR = "订单状态错误";
     public static final String ORDER_NOT_FOUND = "订单不存在";
+    public static final String PAGE_CURSOR_INVALID = "分页游标无效";
+    public static final String REPORT_TYPE_INVALID = "报表类型错误";
+    public static final String REPORT_DATE_RANGE_INVALID = "导出日期范围错误";
+    public static final String REPORT_SYNC_EXPORT_TOO_LONG = "日期范围过长，请通过 POST /admin/report/export 提交导出任务";
+    public static final String METRICS_DATE_RANGE_INVALID = "统计日期范围错误";
+    public static final String REPORT_EXPORT_BUSY = "导出任务过多，请稍后重试";
+    public static final String REPORT_EXPORT_JOB_NOT_FOUND = "导出任务不存在或已过期";
+    public static final String REPORT_EXPORT_NOT_FINISHED = "导出任务尚未完成";
 
 }
@@ -0,0 +1,12 @@
+package com.sky.exception;
+
+/**
+ * 报表业务异常
+ */
+public class ReportBusinessException extends BaseException {
+
+    public ReportBusinessException(String msg) {
+        super(msg);
+    }
+
+}
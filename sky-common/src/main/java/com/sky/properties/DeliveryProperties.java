@@ -0,0 +1,17 @@
+package com.sky.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "sky.delivery")
+@Data
+public class DeliveryProperties {
+
+    private int maxDistance = 5000; //最大配送距离，单位 米
+    private long localCacheSize = 10000; //本地缓存最大条目数
+    private long localCacheMinutes = 60; //本地缓存过期时间，单位 分钟
+    private long redisCacheDays = 7; //Redis缓存过期时间，单位 天
+
+}
@@ -0,0 +1,21 @@
+package com.sky.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "sky.http-client")
+@Data
+public class HttpClientProperties {
+
+    private int maxTotal = 200; //连接池最大连接数
+    private int maxPerRoute = 50; //每个路由（目标主机）的最大连接数
+    private int connectTimeout = 5000; //建立连接超时时间，单位 毫秒
+    private int socketTimeout = 5000; //读取数据超时时间，单位 毫秒
+    private int connectionRequestTimeout = 1000; //从连接池获取连接的超时时间，单位 毫秒
+    private long keepAlive = 30000; //服务端未指定Keep-Alive时连接的保持时间，单位 毫秒
+    private long maxIdleTime = 30000; //空闲连接的回收时间，单位 毫秒
+    private int validateAfterInactivity = 2000; //连接空闲超过该时间后复用前先校验，单位 毫秒
+
+}
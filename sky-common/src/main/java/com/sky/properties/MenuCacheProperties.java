@@ -0,0 +1,22 @@
+package com.sky.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "sky.menu-cache")
+@Data
+public class MenuCacheProperties {
+
+    private long localMaxSize = 1000; //本地缓存每类数据的最大条目数
+    private long localTtlSeconds = 300; //本地缓存过期时间，失效广播丢失时最多延迟该时间生效，单位 秒
+    private long redisTtlSeconds = 86400; //Redis缓存过期时间，单位 秒
+    private long redisTtlRandomSeconds = 3600; //Redis缓存过期时间的随机增量，避免同时过期，单位 秒
+    private long detailStaleSeconds = 600; //菜品、套餐详情缓存过期后仍可返回旧值并在后台刷新的时间，单位 秒
+    private long detailLoadTimeoutMillis = 500; //等待其他线程加载菜品、套餐详情的最长时间，单位 毫秒
+    private long idFilterExpectedInsertions = 100000; //菜品、套餐id布隆过滤器的预计元素数量
+    private double idFilterFalseProbability = 0.01; //菜品、套餐id布隆过滤器的误判率
+    private long countReconcileMinutes = 60; //从数据库重新统计各分类菜品、套餐数量的间隔，单位 分钟
+
+}
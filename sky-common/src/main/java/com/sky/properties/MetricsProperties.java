@@ -0,0 +1,19 @@
+package com.sky.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "sky.metrics")
+@Data
+public class MetricsProperties {
+
+    private int closeLookbackDays = 3; //每天汇总时重新汇总的天数，订单在下单日之后完成、取消时修正之前的汇总结果
+    private int rollupChunkDays = 31; //批量汇总时每次查询的天数
+    private long todayRefreshSeconds = 300; //汇总当天数据的间隔，单位 秒
+    private int exportRowWindow = 100; //导出报表时内存中保留的明细行数，更早的行写入临时文件
+    private int maxDays = 3660; //单次统计、回填的最大天数
+    private int backfillMaxDays = 31; //统计时自动补写汇总表的最大天数，缺少更多天时只查询不写入
+
+}
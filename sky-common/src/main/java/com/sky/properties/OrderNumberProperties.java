@@ -0,0 +1,16 @@
+package com.sky.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "sky.order-number")
+@Data
+public class OrderNumberProperties {
+
+    private long epoch = 1704038400000L; //起始时间戳，2024-01-01 00:00:00（北京时间），单位 毫秒
+    private long workerLeaseSeconds = 60; //机器号在Redis中的租约时间，每隔1/3租约时间续期一次，单位 秒
+    private long maxBackwardMillis = 1000; //允许的最大时钟回拨，回拨不超过该值时沿用上次时间继续分配序列号，单位 毫秒
+
+}
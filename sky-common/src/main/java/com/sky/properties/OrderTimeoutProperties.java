@@ -0,0 +1,16 @@
+package com.sky.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "sky.order-timeout")
+@Data
+public class OrderTimeoutProperties {
+
+    private long paymentMinutes = 15; //下单后未支付自动取消的时间，单位 分钟
+    private long deliveryMinutes = 60; //派送中自动完成的时间，单位 分钟
+    private int batchSize = 500; //每批处理的订单数
+
+}
@@ -0,0 +1,14 @@
+package com.sky.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "sky.order-transition")
+@Data
+public class OrderTransitionProperties {
+
+    private int chunkSize = 500; //批量修改订单状态时每条SQL包含的订单数
+
+}
@@ -0,0 +1,21 @@
+package com.sky.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "sky.refund")
+@Data
+public class RefundProperties {
+
+    private int batchSize = 20; //每批领取的退款任务数
+    private int maxRetries = 8; //最大重试次数，超过后标记为退款失败
+    private long baseBackoffSeconds = 10; //首次重试间隔，之后按2的指数递增，单位 秒
+    private long maxBackoffSeconds = 1800; //最大重试间隔，单位 秒
+    private long stuckTimeoutMinutes = 10; //退款中状态超过该时间视为执行节点异常，重新执行，单位 分钟
+    private int corePoolSize = 4; //退款线程池核心线程数
+    private int maxPoolSize = 8; //退款线程池最大线程数
+    private int queueCapacity = 100; //退款线程池队列容量
+
+}
@@ -0,0 +1,20 @@
+package com.sky.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "sky.report-export")
+@Data
+public class ReportExportProperties {
+
+    private String spoolDir = System.getProperty("java.io.tmpdir") + "/sky-report-export"; //导出文件的存放目录
+    private int maxDays = 3660; //单次导出的最大天数
+    private int syncMaxDays = 31; //同步导出的最大天数，与模板的明细行数一致，更长的范围需要提交导出任务
+    private long expireMinutes = 60; //导出完成后文件的保留时间，单位 分钟
+    private long cleanupSeconds = 300; //清理过期任务的间隔，单位 秒
+    private int corePoolSize = 2; //导出线程池线程数
+    private int queueCapacity = 20; //导出线程池队列容量，队列满时拒绝新的导出任务
+
+}
@@ -0,0 +1,15 @@
+package com.sky.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "sky.shop")
+@Data
+public class ShopProperties {
+
+    private Integer defaultStatus = 0; //Redis中没有店铺状态时使用的默认状态，1 营业中 0 打烊中
+    private long statusReconcileSeconds = 30; //从Redis重新读取店铺状态的间隔，状态变更广播丢失时最多延迟该时间生效，单位 秒
+
+}
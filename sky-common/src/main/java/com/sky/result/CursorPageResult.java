@@ -0,0 +1,26 @@
+package com.sky.result;
+
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 封装游标分页查询结果
+ */
+@Data
+@EqualsAndHashCode(callSuper = true)
+@NoArgsConstructor
+public class CursorPageResult extends PageResult {
+
+    public static final long TOTAL_NOT_COUNTED = -1;
+
+    private String nextCursor; //下一页的游标，没有下一页时为空
+
+    public CursorPageResult(long total, List records, String nextCursor) {
+        super(total, records);
+        this.nextCursor = nextCursor;
+    }
+
+}
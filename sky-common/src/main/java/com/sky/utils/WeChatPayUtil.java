@@ -5,8 +5,10 @@ import com.alibaba.fastjson.JSONObject;
 import com.sky.properties.WeChatProperties;
 import com.wechat.pay.contrib.apache.httpclient.WechatPayHttpClientBuilder;
 import com.wechat.pay.contrib.apache.httpclient.util.PemUtil;
+import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang.RandomStringUtils;
 import org.apache.http.HttpHeaders;
+import org.apache.http.client.config.RequestConfig;
 import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpGet;
 import org.apache.http.client.methods.HttpPost;
@@ -17,9 +19,10 @@ import org.apache.http.util.EntityUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import javax.annotation.PreDestroy;
 import java.io.File;
 import java.io.FileInputStream;
-import java.io.FileNotFoundException;
+import java.io.IOException;
 import java.math.BigDecimal;
 import java.security.PrivateKey;
 import java.security.Signature;
@@ -28,11 +31,13 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Base64;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 /**
  * 微信支付工具类
  */
 @Component
+@Slf4j
 public class WeChatPayUtil {
 
     //微信支付下单接口地址
@@ -41,34 +46,119 @@ public class WeChatPayUtil {
     //申请退款接口地址
     public static final String REFUNDS = "https://api.mch.weixin.qq.com/v3/refund/domestic/refunds";
 
+    //证书文件变化的检查间隔、请求超时时间、空闲连接回收时间，单位 毫秒
+    private static final long RELOAD_CHECK_INTERVAL = 60 * 1000;
+    private static final int TIMEOUT_MSEC = 5 * 1000;
+    private static final long MAX_IDLE_TIME = 30 * 1000;
+    //连接池最大连接数
+    private static final int MAX_CONN_TOTAL = 50;
+
     @Autowired
     private WeChatProperties weChatProperties;
 
+    private volatile CloseableHttpClient httpClient;
+    private volatile PrivateKey merchantPrivateKey;
+    private CloseableHttpClient retiredClient;
+    private long privateKeyLastModified;
+    private long certLastModified;
+    private volatile long lastCheckTime;
+
     /**
      * 获取调用微信接口的客户端工具对象
+     * 商户私钥、平台证书只在首次使用或文件发生变化时加载，客户端长期复用并使用连接池
      *
      * @return
      */
     private CloseableHttpClient getClient() {
-        PrivateKey merchantPrivateKey = null;
-        try {
-            //merchantPrivateKey商户API私钥，如何加载商户API私钥请看常见问题
-            merchantPrivateKey = PemUtil.loadPrivateKey(new FileInputStream(new File(weChatProperties.getPrivateKeyFilePath())));
+        CloseableHttpClient client = httpClient;
+        long now = System.currentTimeMillis();
+        if (client != null && now - lastCheckTime < RELOAD_CHECK_INTERVAL) {
+            return client;
+        }
+        synchronized (this) {
+            lastCheckTime = now;
+            File privateKeyFile = new File(weChatProperties.getPrivateKeyFilePath());
+            File certFile = new File(weChatProperties.getWeChatPayCertFilePath());
+            if (httpClient != null
+                    && privateKeyFile.lastModified() == privateKeyLastModified
+                    && certFile.lastModified() == certLastModified) {
+                return httpClient;
+            }
+            try {
+                reload(privateKeyFile, certFile);
+            } catch (IOException | RuntimeException e) {
+                if (httpClient == null) {
+                    throw new IllegalStateException("加载微信支付证书失败", e);
+                }
+                //文件正在被替换时读取或解析失败，继续使用已加载的客户端，下次检查时重试
+                log.error("重新加载微信支付证书失败，继续使用原证书", e);
+            }
+            return httpClient;
+        }
+    }
+
+    /**
+     * 加载商户私钥和平台证书，重新构造客户端
+     *
+     * @param privateKeyFile
+     * @param certFile
+     */
+    private void reload(File privateKeyFile, File certFile) throws IOException {
+        long keyModified = privateKeyFile.lastModified();
+        long certModified = certFile.lastModified();
+
+        PrivateKey privateKey;
+        X509Certificate x509Certificate;
+        try (FileInputStream keyIn = new FileInputStream(privateKeyFile);
+             FileInputStream certIn = new FileInputStream(certFile)) {
+            //merchantPrivateKey商户API私钥
+            privateKey = PemUtil.loadPrivateKey(keyIn);
             //加载平台证书文件
-            X509Certificate x509Certificate = PemUtil.loadCertificate(new FileInputStream(new File(weChatProperties.getWeChatPayCertFilePath())));
-            //wechatPayCertificates微信支付平台证书列表。你也可以使用后面章节提到的“定时更新平台证书功能”，而不需要关心平台证书的来龙去脉
-            List<X509Certificate> wechatPayCertificates = Arrays.asList(x509Certificate);
+            x509Certificate = PemUtil.loadCertificate(certIn);
+        }
+        //wechatPayCertificates微信支付平台证书列表
+        List<X509Certificate> wechatPayCertificates = Arrays.asList(x509Certificate);
 
-            WechatPayHttpClientBuilder builder = WechatPayHttpClientBuilder.create()
-                    .withMerchant(weChatProperties.getMchid(), weChatProperties.getMchSerialNo(), merchantPrivateKey)
-                    .withWechatPay(wechatPayCertificates);
+        // 通过WechatPayHttpClientBuilder构造的HttpClient，会自动的处理签名和验签
+        CloseableHttpClient client = WechatPayHttpClientBuilder.create()
+                .withMerchant(weChatProperties.getMchid(), weChatProperties.getMchSerialNo(), privateKey)
+                .withWechatPay(wechatPayCertificates)
+                .setMaxConnTotal(MAX_CONN_TOTAL)
+                .setMaxConnPerRoute(MAX_CONN_TOTAL)
+                .evictExpiredConnections()
+                .evictIdleConnections(MAX_IDLE_TIME, TimeUnit.MILLISECONDS)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectTimeout(TIMEOUT_MSEC)
+                        .setConnectionRequestTimeout(TIMEOUT_MSEC)
+                        .setSocketTimeout(TIMEOUT_MSEC).build())
+                .build();
 
-            // 通过WechatPayHttpClientBuilder构造的HttpClient，会自动的处理签名和验签
-            CloseableHttpClient httpClient = builder.build();
-            return httpClient;
-        } catch (FileNotFoundException e) {
-            e.printStackTrace();
-            return null;
+        //上一代客户端可能仍有请求在执行，延迟到下次重新加载时再关闭
+        closeQuietly(retiredClient);
+        retiredClient = httpClient;
+        merchantPrivateKey = privateKey;
+        privateKeyLastModified = keyModified;
+        certLastModified = certModified;
+        httpClient = client;
+        log.info("微信支付证书加载完成，私钥文件：{}，平台证书文件：{}", privateKeyFile, certFile);
+    }
+
+    @PreDestroy
+    public synchronized void destroy() {
+        closeQuietly(retiredClient);
+        closeQuietly(httpClient);
+        retiredClient = null;
+        httpClient = null;
+    }
+
+    private void closeQuietly(CloseableHttpClient client) {
+        if (client == null) {
+            return;
+        }
+        try {
+            client.close();
+        } catch (IOException e) {
+            log.warn("关闭微信支付客户端失败", e);
         }
     }
 
@@ -88,13 +178,9 @@ public class WeChatPayUtil {
         httpPost.addHeader("Wechatpay-Serial", weChatProperties.getMchSerialNo());
         httpPost.setEntity(new StringEntity(body, "UTF-8"));
 
-        CloseableHttpResponse response = httpClient.execute(httpPost);
-        try {
-            String bodyAsString = EntityUtils.toString(response.getEntity());
-            return bodyAsString;
-        } finally {
-            httpClient.close();
-            response.close();
+        //关闭响应即把连接归还连接池，客户端继续复用
+        try (CloseableHttpResponse response = httpClient.execute(httpPost)) {
+            return EntityUtils.toString(response.getEntity());
         }
     }
 
@@ -112,13 +198,8 @@ public class WeChatPayUtil {
         httpGet.addHeader(HttpHeaders.CONTENT_TYPE, ContentType.APPLICATION_JSON.toString());
         httpGet.addHeader("Wechatpay-Serial", weChatProperties.getMchSerialNo());
 
-        CloseableHttpResponse response = httpClient.execute(httpGet);
-        try {
-            String bodyAsString = EntityUtils.toString(response.getEntity());
-            return bodyAsString;
-        } finally {
-            httpClient.close();
-            response.close();
+        try (CloseableHttpResponse response = httpClient.execute(httpGet)) {
+            return EntityUtils.toString(response.getEntity());
         }
     }
 
@@ -188,7 +269,8 @@ public class WeChatPayUtil {
             byte[] message = signMessage.getBytes();
 
             Signature signature = Signature.getInstance("SHA256withRSA");
-            signature.initSign(PemUtil.loadPrivateKey(new FileInputStream(new File(weChatProperties.getPrivateKeyFilePath()))));
+            getClient();
+            signature.initSign(merchantPrivateKey);
             signature.update(message);
             String packageSign = Base64.getEncoder().encodeToString(signature.sign());
 
@@ -0,0 +1,149 @@
+package com.sky.utils;
+
+import com.sky.properties.WeChatProperties;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 使用本地模拟的支付接口测试WeChatPayUtil，吞吐量对比见sky-server中的WeChatPayBenchmark
+ */
+class WeChatPayUtilTest {
+
+    private static final String RESPONSE = "{\"status\":\"PROCESSING\"}";
+
+    private static final int REQUESTS = 200;
+
+    @TempDir
+    Path tempDir;
+
+    private HttpServer server;
+
+    private String url;
+
+    //模拟接口收到请求的客户端端口，端口数即建立的TCP连接数
+    private final Set<Integer> remotePorts = ConcurrentHashMap.newKeySet();
+
+    private Path privateKeyFile;
+
+    private Path certFile;
+
+    private WeChatProperties weChatProperties;
+
+    private WeChatPayUtil weChatPayUtil;
+
+    @BeforeAll
+    static void disableNagle() {
+        //模拟接口分开写响应头和响应体，不关闭Nagle算法时每个请求都会等待延迟确认
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+    }
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/v3/refund/domestic/refunds", exchange -> {
+            remotePorts.add(exchange.getRemoteAddress().getPort());
+            try (InputStream in = exchange.getRequestBody()) {
+                while (in.read() != -1) {
+                    //读完请求体，连接才能复用
+                }
+            }
+            byte[] body = RESPONSE.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+        url = "http://127.0.0.1:" + server.getAddress().getPort() + "/v3/refund/domestic/refunds";
+
+        privateKeyFile = copy("wechatpay/apiclient_key.pem");
+        certFile = copy("wechatpay/platform_cert.pem");
+
+        weChatProperties = new WeChatProperties();
+        weChatProperties.setMchid("1900000000");
+        weChatProperties.setMchSerialNo("TEST");
+        weChatProperties.setPrivateKeyFilePath(privateKeyFile.toString());
+        weChatProperties.setWeChatPayCertFilePath(certFile.toString());
+
+        weChatPayUtil = new WeChatPayUtil();
+        ReflectionTestUtils.setField(weChatPayUtil, "weChatProperties", weChatProperties);
+    }
+
+    @AfterEach
+    void tearDown() {
+        weChatPayUtil.destroy();
+        server.stop(0);
+    }
+
+    @Test
+    void reusesClientAndConnections() {
+        assertEquals(RESPONSE, post());
+        Object client = ReflectionTestUtils.getField(weChatPayUtil, "httpClient");
+
+        for (int i = 1; i < REQUESTS; i++) {
+            assertEquals(RESPONSE, post());
+        }
+
+        assertSame(client, ReflectionTestUtils.getField(weChatPayUtil, "httpClient"), "证书未变化时复用同一个客户端");
+        assertTrue(remotePorts.size() <= 2, "请求复用连接池中的连接，实际建立连接数：" + remotePorts.size());
+    }
+
+    @Test
+    void reloadsClientWhenCertificateChanges() {
+        post();
+        Object client = ReflectionTestUtils.getField(weChatPayUtil, "httpClient");
+
+        assertTrue(certFile.toFile().setLastModified(certFile.toFile().lastModified() + 2000));
+        ReflectionTestUtils.setField(weChatPayUtil, "lastCheckTime", 0L);
+        assertEquals(RESPONSE, post());
+
+        assertNotSame(client, ReflectionTestUtils.getField(weChatPayUtil, "httpClient"), "证书文件变化后重新加载");
+    }
+
+    @Test
+    void keepsCurrentClientWhenReloadFails() throws Exception {
+        post();
+        Object client = ReflectionTestUtils.getField(weChatPayUtil, "httpClient");
+
+        Files.write(privateKeyFile, "broken".getBytes(StandardCharsets.UTF_8));
+        assertTrue(privateKeyFile.toFile().setLastModified(privateKeyFile.toFile().lastModified() + 2000));
+        ReflectionTestUtils.setField(weChatPayUtil, "lastCheckTime", 0L);
+
+        assertEquals(RESPONSE, post());
+        assertSame(client, ReflectionTestUtils.getField(weChatPayUtil, "httpClient"), "加载失败时继续使用原客户端");
+    }
+
+    private String post() {
+        return ReflectionTestUtils.invokeMethod(weChatPayUtil, "post", url, "{}");
+    }
+
+    private Path copy(String resource) throws Exception {
+        Path target = tempDir.resolve(resource.substring(resource.lastIndexOf('/') + 1));
+        try (InputStream in = new ClassPathResource(resource).getInputStream()) {
+            Files.copy(in, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+        return target;
+    }
+}
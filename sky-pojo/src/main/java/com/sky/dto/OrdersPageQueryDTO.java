@@ -27,4 +27,10 @@ public class OrdersPageQueryDTO implements Serializable {
 
     private Long userId;
 
+    //游标分页：传入该参数（第一页传空字符串）时按游标分页，订单号、手机号按前缀匹配
+    private String cursor;
+
+    //游标分页时是否统计总记录数
+    private Boolean withTotal;
+
 }
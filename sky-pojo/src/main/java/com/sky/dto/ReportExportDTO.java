@@ -0,0 +1,20 @@
+package com.sky.dto;
+
+import lombok.Data;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+@Data
+public class ReportExportDTO implements Serializable {
+
+    //开始日期
+    private LocalDate begin;
+
+    //结束日期（包含）
+    private LocalDate end;
+
+    //报表类型 1运营数据报表
+    private Integer type;
+
+}
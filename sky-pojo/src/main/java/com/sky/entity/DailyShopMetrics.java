@@ -0,0 +1,76 @@
+package com.sky.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * 每日营业数据
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DailyShopMetrics implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    //日期
+    private LocalDate metricDate;
+
+    //营业额，已完成订单的金额总和
+    private BigDecimal turnover;
+
+    //订单总数
+    private Integer totalOrders;
+
+    //有效订单数，已完成订单的数量
+    private Integer validOrders;
+
+    //新增用户数
+    private Integer newUsers;
+
+    //各状态的订单数
+    private Integer pendingPaymentOrders;
+
+    private Integer toBeConfirmedOrders;
+
+    private Integer confirmedOrders;
+
+    private Integer deliveryInProgressOrders;
+
+    private Integer completedOrders;
+
+    private Integer cancelledOrders;
+
+    //汇总时间
+    private LocalDateTime updateTime;
+
+    /**
+     * 没有任何数据的一天
+     *
+     * @param date
+     * @return
+     */
+    public static DailyShopMetrics empty(LocalDate date) {
+        return DailyShopMetrics.builder()
+                .metricDate(date)
+                .turnover(BigDecimal.ZERO)
+                .totalOrders(0)
+                .validOrders(0)
+                .newUsers(0)
+                .pendingPaymentOrders(0)
+                .toBeConfirmedOrders(0)
+                .confirmedOrders(0)
+                .deliveryInProgressOrders(0)
+                .completedOrders(0)
+                .cancelledOrders(0)
+                .build();
+    }
+}
@@ -0,0 +1,66 @@
+package com.sky.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * 订单退款
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderRefund implements Serializable {
+
+    /**
+     * 退款状态 0待退款 1退款中 2已退款 3退款失败
+     */
+    public static final Integer PENDING = 0;
+    public static final Integer PROCESSING = 1;
+    public static final Integer SUCCESS = 2;
+    public static final Integer FAILED = 3;
+
+    private static final long serialVersionUID = 1L;
+
+    private Long id;
+
+    //订单id
+    private Long orderId;
+
+    //商户订单号
+    private String outTradeNo;
+
+    //商户退款单号，同一退款单号只会退款一次
+    private String outRefundNo;
+
+    //退款金额
+    private BigDecimal refundAmount;
+
+    //原订单金额
+    private BigDecimal totalAmount;
+
+    //退款状态 0待退款 1退款中 2已退款 3退款失败
+    private Integer status;
+
+    //已重试次数
+    private Integer retryCount;
+
+    //下次执行时间
+    private LocalDateTime nextRetryTime;
+
+    //领取任务的批次标识
+    private String claimToken;
+
+    //最近一次失败原因
+    private String errorMsg;
+
+    private LocalDateTime createTime;
+
+    private LocalDateTime updateTime;
+}
@@ -0,0 +1,31 @@
+package com.sky.vo;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+/**
+ * 工作台全部数据
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DashboardVO implements Serializable {
+
+    //今日营业数据
+    private BusinessDataVO businessData;
+
+    //订单概览
+    private OrderOverViewVO orderOverView;
+
+    //菜品总览
+    private DishOverViewVO dishOverView;
+
+    //套餐总览
+    private SetmealOverViewVO setmealOverView;
+
+}
@@ -0,0 +1,37 @@
+package com.sky.vo;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class MenuCategoryVO implements Serializable {
+
+    private Long id;
+
+    //类型: 1菜品分类 2套餐分类
+    private Integer type;
+
+    //分类名称
+    private String name;
+
+    //顺序
+    private Integer sort;
+
+    //分类内容摘要
+    private String hash;
+
+    //起售中的菜品及口味
+    private List<DishVO> dishes;
+
+    //起售中的套餐及包含的菜品
+    private List<MenuSetmealVO> setmeals;
+
+}
@@ -0,0 +1,29 @@
+package com.sky.vo;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class MenuSnapshotVO implements Serializable {
+
+    //菜单版本号，由各分类内容摘要计算，内容不变时版本号不变
+    private String version;
+
+    //true 全量菜单 false 相对客户端版本的增量
+    private Boolean full;
+
+    //全量时为所有分类，增量时为新增或内容发生变化的分类
+    private List<MenuCategoryVO> categories;
+
+    //增量时已删除或禁用的分类id
+    private List<Long> removedCategoryIds;
+
+}
@@ -0,0 +1,42 @@
+package com.sky.vo;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * 订单退款状态
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RefundVO implements Serializable {
+
+    //订单id
+    private Long orderId;
+
+    //商户退款单号
+    private String outRefundNo;
+
+    //退款金额
+    private BigDecimal refundAmount;
+
+    //退款状态 0待退款 1退款中 2已退款 3退款失败
+    private Integer status;
+
+    //已重试次数
+    private Integer retryCount;
+
+    //最近一次失败原因
+    private String errorMsg;
+
+    private LocalDateTime createTime;
+
+    private LocalDateTime updateTime;
+}
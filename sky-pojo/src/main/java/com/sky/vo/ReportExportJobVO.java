@@ -0,0 +1,47 @@
+package com.sky.vo;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * 报表导出任务
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReportExportJobVO implements Serializable {
+
+    //任务id
+    private String jobId;
+
+    //报表类型 1运营数据报表
+    private Integer type;
+
+    private LocalDate begin;
+
+    private LocalDate end;
+
+    //任务状态 1排队中 2导出中 3已完成 4失败
+    private Integer status;
+
+    //导出进度，0-100
+    private Integer progress;
+
+    //失败原因
+    private String errorMsg;
+
+    private LocalDateTime createTime;
+
+    private LocalDateTime finishTime;
+
+    //文件过期时间，过期后不能下载
+    private LocalDateTime expireTime;
+
+}
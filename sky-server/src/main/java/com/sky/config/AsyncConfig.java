@@ -1,5 +1,7 @@
 package com.sky.config;
 
+import com.sky.properties.RefundProperties;
+import com.sky.properties.ReportExportProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.task.TaskExecutor;
@@ -27,4 +29,71 @@ public class AsyncConfig {
         executor.initialize();
         return executor;
     }
-}
\ No newline at end of file
+
+    /**
+     * 下单时配送范围校验线程池，队列满时由下单线程自己执行校验，高峰期不会因线程池满而下单失败
+     */
+    @Bean("rangeCheckExecutor")
+    public TaskExecutor rangeCheckExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        int corePoolSize = Runtime.getRuntime().availableProcessors();
+
+        executor.setCorePoolSize(corePoolSize);
+        executor.setMaxPoolSize(corePoolSize * 2);
+        executor.setQueueCapacity(100);
+        executor.setThreadNamePrefix("SkyTakeout-RangeCheck-");
+        executor.setKeepAliveSeconds(60);
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * 退款线程池，队列满时由领取任务的线程执行，控制同时调用微信退款接口的数量
+     */
+    @Bean("refundExecutor")
+    public TaskExecutor refundExecutor(RefundProperties refundProperties) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(refundProperties.getCorePoolSize());
+        executor.setMaxPoolSize(refundProperties.getMaxPoolSize());
+        executor.setQueueCapacity(refundProperties.getQueueCapacity());
+        executor.setThreadNamePrefix("SkyTakeout-Refund-");
+        executor.setKeepAliveSeconds(60);
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(60);
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * 工作台查询线程池，线程数和队列都有上限，队列满时由请求线程自己执行，避免并行查询占满数据库连接池
+     */
+    @Bean("dashboardExecutor")
+    public TaskExecutor dashboardExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(4);
+        executor.setMaxPoolSize(4);
+        executor.setQueueCapacity(100);
+        executor.setThreadNamePrefix("SkyTakeout-Dashboard-");
+        executor.setKeepAliveSeconds(60);
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * 报表导出线程池，线程数和队列都有上限，队列满时拒绝新的导出任务
+     */
+    @Bean("reportExportExecutor")
+    public TaskExecutor reportExportExecutor(ReportExportProperties reportExportProperties) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(reportExportProperties.getCorePoolSize());
+        executor.setMaxPoolSize(reportExportProperties.getCorePoolSize());
+        executor.setQueueCapacity(reportExportProperties.getQueueCapacity());
+        executor.setThreadNamePrefix("SkyTakeout-ReportExport-");
+        executor.setKeepAliveSeconds(60);
+        executor.initialize();
+        return executor;
+    }
+}
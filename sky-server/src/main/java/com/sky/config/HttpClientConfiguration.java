@@ -0,0 +1,51 @@
+package com.sky.config;
+
+import com.sky.properties.HttpClientProperties;
+import com.sky.utils.HttpClientUtil;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.http.pool.PoolStats;
+import org.springframework.context.annotation.Configuration;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.function.ToIntFunction;
+
+/**
+ * HttpClientUtil连接池配置，并将连接池状态注册为监控指标
+ */
+@Slf4j
+@Configuration
+@RequiredArgsConstructor
+public class HttpClientConfiguration {
+
+    private final HttpClientProperties httpClientProperties;
+
+    private final MeterRegistry meterRegistry;
+
+    @PostConstruct
+    public void init() {
+        log.info("初始化HttpClient连接池：{}", httpClientProperties);
+        HttpClientUtil.init(httpClientProperties);
+
+        registerPoolGauge("leased", PoolStats::getLeased);
+        registerPoolGauge("pending", PoolStats::getPending);
+        registerPoolGauge("available", PoolStats::getAvailable);
+        registerPoolGauge("max", PoolStats::getMax);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        log.info("关闭HttpClient连接池");
+        HttpClientUtil.shutdown();
+    }
+
+    private void registerPoolGauge(String state, ToIntFunction<PoolStats> value) {
+        Gauge.builder("sky.http.client.pool", () -> value.applyAsInt(HttpClientUtil.getPoolStats()))
+                .description("HttpClient连接池连接数")
+                .tag("state", state)
+                .register(meterRegistry);
+    }
+}
@@ -7,16 +7,16 @@ import com.sky.entity.Dish;
 import com.sky.result.PageResult;
 import com.sky.result.Result;
 import com.sky.service.DishService;
+import com.sky.service.MenuCacheService;
+import com.sky.service.impl.async.AsyncService;
 import com.sky.vo.DishVO;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
-import java.util.Set;
 
 @RestController
 @RequestMapping("/admin/dish")
@@ -26,7 +26,9 @@ public class DishController {
         @Autowired
         private DishService dishService;
         @Autowired
-        private StringRedisTemplate stringRedisTemplate;
+        private MenuCacheService menuCacheService;
+        @Autowired
+        private AsyncService asyncService;
 
     /**
      * 新增菜品
@@ -39,7 +41,8 @@ public class DishController {
         log.info("新增菜品：{}", dishDTO);
         dishService.saveWithFlavor(dishDTO);
         //清理缓存数据
-        cleanCache("dish_"+dishDTO.getCategoryId());
+        menuCacheService.evictDishList(dishDTO.getCategoryId());
+        asyncService.warmUpDishCache();
         return Result.success();
     }
         /**
@@ -65,7 +68,8 @@ public class DishController {
     public Result delete(@RequestParam List<Long> ids) {
         log.info("删除菜品：{}", ids);
         dishService.deleteBatch(ids);
-        cleanCache("*dish_*");
+        menuCacheService.evictAllDishLists();
+        asyncService.warmUpDishCache();
         return Result.success();
     }
 
@@ -74,7 +78,8 @@ public class DishController {
     public Result<String> startOrStop(Long id,@PathVariable Integer status) {
 
         dishService.startOrStop(status,id);
-        cleanCache("*dish_*");
+        menuCacheService.evictAllDishLists();
+        asyncService.warmUpDishCache();
         return Result.success();
 
     }
@@ -101,7 +106,8 @@ public class DishController {
     public Result update(@RequestBody DishDTO dishDTO) {
         log.info("更新菜品：{}", dishDTO);
         dishService.updateWithFlavor(dishDTO);
-        cleanCache("*dish_*");
+        menuCacheService.evictAllDishLists();
+        asyncService.warmUpDishCache();
         return Result.success();
     }
     /**
@@ -118,11 +124,4 @@ public class DishController {
     }
 
 
-
-
-    private void cleanCache(String pattern) {
-        Set keys = stringRedisTemplate.keys(pattern);
-        stringRedisTemplate.delete(keys);
-    }
-
 }
@@ -7,8 +7,10 @@ import com.sky.dto.OrdersRejectionDTO;
 import com.sky.result.PageResult;
 import com.sky.result.Result;
 import com.sky.service.OrderService;
+import com.sky.service.RefundService;
 import com.sky.vo.OrderStatisticsVO;
 import com.sky.vo.OrderVO;
+import com.sky.vo.RefundVO;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
 import lombok.RequiredArgsConstructor;
@@ -24,6 +26,8 @@ public class OrderController {
 
     private final OrderService orderService;
 
+    private final RefundService refundService;
+
     /**
      * 订单搜索
      *
@@ -120,5 +124,16 @@ public class OrderController {
         return Result.success();
     }
 
-
+    /**
+     * 查询订单退款状态
+     *
+     * @param id
+     * @return
+     */
+    @GetMapping("/refund/{id}")
+    @ApiOperation("查询订单退款状态")
+    public Result<RefundVO> refund(@PathVariable("id") Long id) {
+        RefundVO refundVO = refundService.getByOrderId(id);
+        return Result.success(refundVO);
+    }
 }
@@ -1,9 +1,12 @@
 package com.sky.controller.admin;
 
 
+import com.sky.dto.ReportExportDTO;
 import com.sky.result.Result;
+import com.sky.service.ReportExportService;
 import com.sky.service.ReportService;
 import com.sky.vo.OrderReportVO;
+import com.sky.vo.ReportExportJobVO;
 import com.sky.vo.SalesTop10ReportVO;
 import com.sky.vo.TurnoverReportVO;
 import com.sky.vo.UserReportVO;
@@ -13,9 +16,13 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
 import java.time.LocalDate;
@@ -30,6 +37,8 @@ public class ReportController {
 
     private final ReportService reportService;
 
+    private final ReportExportService reportExportService;
+
     /**
      * 营业额统计
      * @param begin
@@ -83,14 +92,72 @@ public class ReportController {
         return Result.success(reportService.getSalesTop10(begin, end));
     }
     /**
-     * 导出报表
+     * 导出报表，不指定日期时导出最近30天，最多31天，更长的范围提交导出任务
+     * @param begin
+     * @param end
      * @param response
      * @throws IOException
      */
     @GetMapping("/export")
     @ApiOperation("导出报表")
-    public void export(HttpServletResponse response) throws IOException {
-        reportService.exportBusinessData(response);
+    public void export(@DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate begin,
+                       @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate end,
+                       HttpServletResponse response) throws IOException {
+        if (begin == null || end == null) {
+            end = LocalDate.now().minusDays(1);
+            begin = end.minusDays(29);
+        }
+        log.info("导出报表, begin: {}, end: {}", begin, end);
+        reportService.exportBusinessData(begin, end, response);
+    }
+
+    /**
+     * 提交报表导出任务
+     * @param reportExportDTO
+     * @return
+     */
+    @PostMapping("/export")
+    @ApiOperation("提交报表导出任务")
+    public Result<ReportExportJobVO> submitExport(@RequestBody ReportExportDTO reportExportDTO) {
+        log.info("提交报表导出任务：{}", reportExportDTO);
+        return Result.success(reportExportService.submit(reportExportDTO));
+    }
+
+    /**
+     * 查询报表导出任务进度
+     * @param jobId
+     * @return
+     */
+    @GetMapping("/export/{jobId}")
+    @ApiOperation("查询报表导出任务")
+    public Result<ReportExportJobVO> exportJob(@PathVariable String jobId) {
+        return Result.success(reportExportService.getJob(jobId));
+    }
+
+    /**
+     * 下载导出完成的报表
+     * @param jobId
+     * @param request
+     * @param response
+     */
+    @GetMapping("/export/{jobId}/file")
+    @ApiOperation("下载导出的报表")
+    public void downloadExport(@PathVariable String jobId, HttpServletRequest request, HttpServletResponse response) {
+        reportExportService.download(jobId, request, response);
+    }
+
+    /**
+     * 回填每日营业数据汇总表
+     * @param begin
+     * @param end
+     * @return 汇总的天数
+     */
+    @PostMapping("/metrics/rollup")
+    @ApiOperation("回填每日营业数据")
+    public Result<Integer> rollupDailyMetrics(@DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate begin,
+                                              @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate end) {
+        log.info("回填每日营业数据, begin: {}, end: {}", begin, end);
+        return Result.success(reportService.rollupDailyMetrics(begin, end));
     }
 
 }
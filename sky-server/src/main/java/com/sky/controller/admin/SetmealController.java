@@ -6,13 +6,13 @@ import com.sky.dto.SetmealPageQueryDTO;
 import com.sky.mapper.SetmealMapper;
 import com.sky.result.PageResult;
 import com.sky.result.Result;
+import com.sky.service.MenuCacheService;
 import com.sky.service.SetmealService;
 import com.sky.vo.SetmealVO;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
@@ -24,13 +24,15 @@ import java.util.List;
 public class SetmealController {
     @Autowired
     public SetmealService setmealService;
+    @Autowired
+    private MenuCacheService menuCacheService;
 
 
     @PostMapping
     @ApiOperation("新增套餐")
-    @CacheEvict(cacheNames = "setmealCache", key = "#setmealDTO.categoryId")
     public Result save(@RequestBody SetmealDTO setmealDTO) {
         setmealService.save(setmealDTO);
+        menuCacheService.evictSetmealList(setmealDTO.getCategoryId());
         return Result.success();
     }
 
@@ -44,9 +46,9 @@ public class SetmealController {
 
     @DeleteMapping
     @ApiOperation("删除套餐")
-    @CacheEvict(cacheNames = "setmealCache", allEntries = true)
     public Result delete(@RequestParam List<Long> ids) {
         setmealService.delete(ids);
+        menuCacheService.evictAllSetmealLists();
         return Result.success();
     }
 
@@ -59,17 +61,17 @@ public class SetmealController {
 
     @PutMapping
     @ApiOperation("修改套餐")
-    @CacheEvict(cacheNames = "setmealCache", allEntries = true)
     public Result update(@RequestBody SetmealDTO setmealDTO) {
         setmealService.update(setmealDTO);
+        menuCacheService.evictAllSetmealLists();
         return Result.success();
     }
 
     @PostMapping("/status/{status}")
     @ApiOperation("套餐状态修改")
-    @CacheEvict(cacheNames = "setmealCache", allEntries = true)
     public Result startOrStop(@PathVariable Integer status, @RequestParam Long id) {
         setmealService.startOrStop(status, id);
+        menuCacheService.evictAllSetmealLists();
         return Result.success();
     }
 }
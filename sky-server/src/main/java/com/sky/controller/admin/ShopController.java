@@ -2,11 +2,11 @@ package com.sky.controller.admin;
 
 
 import com.sky.result.Result;
+import com.sky.service.ShopService;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.web.bind.annotation.*;
 
 @RestController("adminShopController")
@@ -15,22 +15,20 @@ import org.springframework.web.bind.annotation.*;
 @Api(tags = "店铺相关接口")
 public class ShopController {
 
-    public static final String KEY = "SHOP_STATUS";
     @Autowired
-    private StringRedisTemplate stringRedisTemplate;
+    private ShopService shopService;
 
     @PutMapping("/{status}")
     @ApiOperation("设置店铺状态")
     public Result setStatus(@PathVariable Integer status) {
         log.info("设置店铺状态为：{}", status == 1 ?"营业中":"打烊中");
-        stringRedisTemplate.opsForValue().set(KEY, String.valueOf(status));
+        shopService.setStatus(status);
         return Result.success();
     }
 
     @GetMapping("/status")
     @ApiOperation("获取店铺状态")
-    public Result getStatus() {
-        String status = stringRedisTemplate.opsForValue().get(KEY);
-        return Result.success(Integer.valueOf(status));
+    public Result<Integer> getStatus() {
+        return Result.success(shopService.getStatus());
     }
 }
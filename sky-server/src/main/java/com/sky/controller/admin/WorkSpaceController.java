@@ -3,6 +3,7 @@ package com.sky.controller.admin;
 import com.sky.result.Result;
 import com.sky.service.WorkspaceService;
 import com.sky.vo.BusinessDataVO;
+import com.sky.vo.DashboardVO;
 import com.sky.vo.DishOverViewVO;
 import com.sky.vo.OrderOverViewVO;
 import com.sky.vo.SetmealOverViewVO;
@@ -73,4 +74,14 @@ public class WorkSpaceController {
     public Result<SetmealOverViewVO> setmealOverView(){
         return Result.success(workspaceService.getSetmealOverView());
     }
+
+    /**
+     * 查询工作台全部数据
+     * @return
+     */
+    @GetMapping("/dashboard")
+    @ApiOperation("查询工作台全部数据")
+    public Result<DashboardVO> dashboard(){
+        return Result.success(workspaceService.getDashboard());
+    }
 }
@@ -3,12 +3,17 @@ package com.sky.controller.user;
 import com.sky.entity.Category;
 import com.sky.result.Result;
 import com.sky.service.CategoryService;
+import com.sky.service.MenuResponseCache;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
 import java.util.List;
 
 @RestController("userCategoryController")
@@ -18,6 +23,8 @@ public class CategoryController {
 
     @Autowired
     private CategoryService categoryService;
+    @Autowired
+    private MenuResponseCache menuResponseCache;
 
     /**
      * 查询分类
@@ -26,8 +33,10 @@ public class CategoryController {
      */
     @GetMapping("/list")
     @ApiOperation("查询分类")
-    public Result<List<Category>> list(Integer type) {
-        List<Category> list = categoryService.list(type);
-        return Result.success(list);
+    public void list(Integer type, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        menuResponseCache.write(MenuResponseCache.CATEGORY_LIST, type, request, response, () -> {
+            List<Category> list = categoryService.list(type);
+            return Result.success(list);
+        });
     }
 }
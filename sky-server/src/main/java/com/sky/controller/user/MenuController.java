@@ -0,0 +1,33 @@
+package com.sky.controller.user;
+
+import com.sky.result.Result;
+import com.sky.service.MenuSnapshotService;
+import com.sky.vo.MenuSnapshotVO;
+import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiOperation;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController("userMenuController")
+@RequestMapping("/user/menu")
+@Api(tags = "C端-菜单接口")
+public class MenuController {
+
+    @Autowired
+    private MenuSnapshotService menuSnapshotService;
+
+    /**
+     * 查询完整菜单，携带版本号时只返回发生变化的分类
+     *
+     * @param version 客户端当前的菜单版本号
+     * @return
+     */
+    @GetMapping("/snapshot")
+    @ApiOperation("查询完整菜单")
+    public Result<MenuSnapshotVO> snapshot(String version) {
+        MenuSnapshotVO menuSnapshotVO = menuSnapshotService.getSnapshot(version);
+        return Result.success(menuSnapshotVO);
+    }
+}
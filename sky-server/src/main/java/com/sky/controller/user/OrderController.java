@@ -58,11 +58,18 @@ public class OrderController {
      * @param page
      * @param pageSize
      * @param status   订单状态 1待付款 2待接单 3已接单 4派送中 5已完成 6已取消
+     * @param cursor    游标分页时传入上一页返回的游标，第一页传空字符串
+     * @param withTotal 游标分页时是否统计总记录数
      * @return
      */
     @GetMapping("/historyOrders")
     @ApiOperation("历史订单查询")
-    public Result<PageResult> page(int page, int pageSize, Integer status) {
+    public Result<PageResult> page(@RequestParam(defaultValue = "1") int page, int pageSize, Integer status,
+                                   String cursor, Boolean withTotal) {
+        if (cursor != null) {
+            PageResult pageResult = orderService.cursorQuery4User(cursor, pageSize, status, Boolean.TRUE.equals(withTotal));
+            return Result.success(pageResult);
+        }
         PageResult pageResult = orderService.pageQuery4User(page, pageSize, status);
         return Result.success(pageResult);
     }
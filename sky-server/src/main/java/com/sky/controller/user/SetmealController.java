@@ -3,18 +3,21 @@ package com.sky.controller.user;
 import com.sky.constant.StatusConstant;
 import com.sky.entity.Setmeal;
 import com.sky.result.Result;
+import com.sky.service.MenuCacheService;
+import com.sky.service.MenuResponseCache;
 import com.sky.service.SetmealService;
 import com.sky.vo.DishItemVO;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.cache.annotation.Cacheable;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
-
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
 import java.util.List;
 
 @RestController("userSetmealController")
@@ -23,6 +26,10 @@ import java.util.List;
 public class SetmealController {
     @Autowired
     private SetmealService setmealService;
+    @Autowired
+    private MenuCacheService menuCacheService;
+    @Autowired
+    private MenuResponseCache menuResponseCache;
 
     /**
      * 条件查询
@@ -32,14 +39,17 @@ public class SetmealController {
      */
     @GetMapping("/list")
     @ApiOperation("根据分类id查询套餐")
-    @Cacheable(cacheNames = "setmealCache", key = "#categoryId")//key: setmealCache::categoryId
-    public Result<List<Setmeal>> list(Long categoryId) {
-        Setmeal setmeal = new Setmeal();
-        setmeal.setCategoryId(categoryId);
-        setmeal.setStatus(StatusConstant.ENABLE);
-
-        List<Setmeal> list = setmealService.list(setmeal);
-        return Result.success(list);
+    public void list(Long categoryId, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        //响应缓存不存在时，依次查询本地缓存、Redis缓存，都不存在时查询数据库
+        menuResponseCache.write(MenuResponseCache.SETMEAL_LIST, categoryId, request, response, () -> {
+            List<Setmeal> list = menuCacheService.getSetmealList(categoryId, () -> {
+                Setmeal setmeal = new Setmeal();
+                setmeal.setCategoryId(categoryId);
+                setmeal.setStatus(StatusConstant.ENABLE);
+                return setmealService.list(setmeal);
+            });
+            return Result.success(list);
+        });
     }
 
     /**
@@ -50,8 +60,10 @@ public class SetmealController {
      */
     @GetMapping("/dish/{id}")
     @ApiOperation("根据套餐id查询包含的菜品列表")
-    public Result<List<DishItemVO>> dishList(@PathVariable("id") Long id) {
-        List<DishItemVO> list = setmealService.getDishItemById(id);
-        return Result.success(list);
+    public void dishList(@PathVariable("id") Long id, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        menuResponseCache.write(MenuResponseCache.SETMEAL_DISH, id, request, response, () -> {
+            List<DishItemVO> list = setmealService.getDishItemById(id);
+            return Result.success(list);
+        });
     }
 }
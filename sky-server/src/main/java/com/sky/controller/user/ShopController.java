@@ -2,11 +2,11 @@ package com.sky.controller.user;
 
 
 import com.sky.result.Result;
+import com.sky.service.ShopService;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.web.bind.annotation.*;
 
 @RestController("userShopController")
@@ -14,15 +14,13 @@ import org.springframework.web.bind.annotation.*;
 @Slf4j
 @Api(tags = "店铺相关接口")
 public class ShopController {
-    public static final String KEY = "SHOP_STATUS";
 
     @Autowired
-    private StringRedisTemplate stringRedisTemplate;
+    private ShopService shopService;
 
     @GetMapping("/status")
     @ApiOperation("获取店铺状态")
-    public Result getStatus() {
-        String status = stringRedisTemplate.opsForValue().get(KEY);
-        return Result.success(Integer.valueOf(status));
+    public Result<Integer> getStatus() {
+        return Result.success(shopService.getStatus());
     }
 }
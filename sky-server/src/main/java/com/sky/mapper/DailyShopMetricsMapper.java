@@ -0,0 +1,48 @@
+package com.sky.mapper;
+
+import com.sky.entity.DailyShopMetrics;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Select;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Mapper
+public interface DailyShopMetricsMapper {
+
+    /**
+     * 按下单日期汇总订单数据，没有订单的日期不返回
+     *
+     * @param begin 开始时间（包含）
+     * @param end   结束时间（不包含）
+     * @return
+     */
+    List<DailyShopMetrics> aggregateOrders(LocalDateTime begin, LocalDateTime end);
+
+    /**
+     * 汇总时间段内的订单数据，一次查询返回各状态的订单数和营业额，结果的日期为空
+     *
+     * @param begin 开始时间（不包含），为空时不限制
+     * @param end   结束时间（不包含），为空时不限制
+     * @return
+     */
+    DailyShopMetrics sumOrders(LocalDateTime begin, LocalDateTime end);
+
+    /**
+     * 批量写入每日营业数据，日期已存在时覆盖
+     *
+     * @param metricsList
+     */
+    void upsertBatch(List<DailyShopMetrics> metricsList);
+
+    /**
+     * 查询日期范围内已汇总的每日营业数据
+     *
+     * @param begin 开始日期（包含）
+     * @param end   结束日期（包含）
+     * @return
+     */
+    @Select("select * from daily_shop_metrics where metric_date between #{begin} and #{end} order by metric_date")
+    List<DailyShopMetrics> getByDateRange(LocalDate begin, LocalDate end);
+}
@@ -43,6 +43,31 @@ public interface DishMapper {
      */
     @Select("select * from dish where id = #{id}")
     Dish getById(Long id);
+
+    /**
+     * 根据id批量查询菜品
+     *
+     * @param ids
+     * @return
+     */
+    List<Dish> getByIds(List<Long> ids);
+
+    /**
+     * 查询所有菜品id
+     *
+     * @return
+     */
+    @Select("select id from dish")
+    List<Long> getAllIds();
+
+    /**
+     * 按分类和状态统计菜品数量
+     *
+     * @return categoryId、status、count
+     */
+    @Select("select category_id as categoryId, status, count(id) as count from dish group by category_id, status")
+    List<Map<String, Object>> countGroupByCategoryAndStatus();
+
     /**
      * 根据id删除菜品
      *
@@ -6,6 +6,7 @@ import com.sky.dto.OrdersPageQueryDTO;
 import com.sky.entity.Orders;
 import org.apache.ibatis.annotations.Insert;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
 import org.apache.ibatis.annotations.Update;
 
@@ -39,6 +40,23 @@ public interface OrderMapper {
      * @param ordersPageQueryDTO
      */
     Page<Orders> pageQuery(OrdersPageQueryDTO ordersPageQueryDTO);
+
+    /**
+     * 游标分页条件查询，按下单时间、id倒序排序，订单号、手机号按前缀匹配
+     * @param query
+     * @param cursorTime 上一页最后一条订单的下单时间，第一页为空
+     * @param cursorId 上一页最后一条订单的id，第一页为空
+     * @param limit
+     * @return
+     */
+    List<Orders> pageQueryByCursor(OrdersPageQueryDTO query, LocalDateTime cursorTime, Long cursorId, int limit);
+
+    /**
+     * 统计游标分页条件查询的总记录数
+     * @param query
+     * @return
+     */
+    long countByCursorQuery(@Param("query") OrdersPageQueryDTO query);
     /**
      * 根据id查询订单
      * @param id
@@ -68,6 +86,26 @@ public interface OrderMapper {
       */
      @Select("select * from orders where status = #{status} and order_time < #{orderTime}")
     List<Orders> getByStatusAndOrderTimeLT(Integer status, LocalDateTime orderTime);
+
+    /**
+     * 根据状态和下单时间按id分批查询订单id
+     * @param status
+     * @param orderTime
+     * @param lastId 上一批的最大id
+     * @param limit
+     * @return
+     */
+    @Select("select id from orders where status = #{status} and order_time < #{orderTime} and id > #{lastId} order by id limit #{limit}")
+    List<Long> getIdsByStatusAndOrderTimeLT(Integer status, LocalDateTime orderTime, Long lastId, int limit);
+
+    /**
+     * 批量修改订单状态，只有仍处于fromStatus的订单会被修改
+     * @param ids
+     * @param fromStatus 修改前应处于的状态
+     * @param target 修改后的状态及取消原因、拒单原因、取消时间
+     * @return 实际修改的订单数
+     */
+    int batchTransition(List<Long> ids, Integer fromStatus, Orders target);
     /**
      * 根据map统计营业额
      * @param map
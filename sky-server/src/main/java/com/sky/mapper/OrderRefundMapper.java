@@ -0,0 +1,74 @@
+package com.sky.mapper;
+
+import com.sky.entity.OrderRefund;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Mapper
+public interface OrderRefundMapper {
+
+    /**
+     * 插入退款任务，商户退款单号已存在时忽略
+     * @param orderRefund
+     * @return
+     */
+    int insertIgnore(OrderRefund orderRefund);
+
+    /**
+     * 领取一批到期的待退款任务
+     * @param claimToken
+     * @param now
+     * @param limit
+     * @return
+     */
+    int claimDue(String claimToken, LocalDateTime now, int limit);
+
+    /**
+     * 根据批次标识查询已领取的任务
+     * @param claimToken
+     * @return
+     */
+    @Select("select * from order_refund where claim_token = #{claimToken} and status = 1")
+    List<OrderRefund> getByClaimToken(String claimToken);
+
+    /**
+     * 退款成功
+     * @param id
+     * @param updateTime
+     */
+    @Update("update order_refund set status = 2, error_msg = null, update_time = #{updateTime} where id = #{id} and status = 1")
+    void markSuccess(Long id, LocalDateTime updateTime);
+
+    /**
+     * 退款失败，等待下次重试或标记为最终失败
+     * @param orderRefund
+     */
+    @Update("update order_refund set status = #{status}, retry_count = #{retryCount}, next_retry_time = #{nextRetryTime}, " +
+            "error_msg = #{errorMsg}, update_time = #{updateTime} where id = #{id} and status = 1")
+    void markFailure(OrderRefund orderRefund);
+
+    /**
+     * 将长时间处于退款中的任务（如执行节点宕机）重新置为待退款并计入重试次数，超过最大重试次数时标记为最终失败
+     * MySQL按顺序执行赋值，status需要在retry_count之前根据原来的重试次数计算
+     * @param before
+     * @param now
+     * @param maxRetries
+     * @return
+     */
+    @Update("update order_refund set status = if(retry_count + 1 > #{maxRetries}, 3, 0), retry_count = retry_count + 1, " +
+            "next_retry_time = #{now}, error_msg = '退款执行超时', update_time = #{now} " +
+            "where status = 1 and update_time < #{before}")
+    int resetStuck(LocalDateTime before, LocalDateTime now, int maxRetries);
+
+    /**
+     * 根据订单id查询退款
+     * @param orderId
+     * @return
+     */
+    @Select("select * from order_refund where order_id = #{orderId}")
+    OrderRefund getByOrderId(Long orderId);
+}
@@ -34,4 +34,11 @@ public interface SetmealDishMapper {
      */
     @Select("select * from setmeal_dish where setmeal_id = #{id}")
     List<SetmealDish> getBySetmealId(Long id);
+
+    /**
+     * 根据套餐id批量查询套餐菜品关系
+     * @param setmealIds
+     * @return
+     */
+    List<SetmealDish> getBySetmealIds(List<Long> setmealIds);
 }
@@ -50,6 +50,18 @@ public interface SetmealMapper {
      */
     @Select("select * from setmeal where id = #{id}")
     Setmeal getById(Long id);
+    /**
+     * 查询所有套餐id
+     * @return
+     */
+    @Select("select id from setmeal")
+    List<Long> getAllIds();
+    /**
+     * 按分类和状态统计套餐数量
+     * @return categoryId、status、count
+     */
+    @Select("select category_id as categoryId, status, count(id) as count from setmeal group by category_id, status")
+    List<Map<String, Object>> countGroupByCategoryAndStatus();
     /**
      * 更新套餐
      * @param setmeal
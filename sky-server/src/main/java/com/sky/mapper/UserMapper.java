@@ -1,11 +1,14 @@
 package com.sky.mapper;
 
 
+import com.sky.dto.DailyStatisticsDTO;
 import com.sky.dto.UserLoginDTO;
 import com.sky.entity.User;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Select;
 
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Map;
 
 @Mapper
@@ -32,4 +35,24 @@ public interface UserMapper {
     User getById(Long userId);
 
     Integer countByMap(Map map);
+
+    /**
+     * 统计指定时间之前注册的用户数量
+     *
+     * @param time
+     * @return
+     */
+    @Select("select count(id) from user where create_time < #{time}")
+    Integer countBefore(LocalDateTime time);
+
+    /**
+     * 按注册日期统计新增用户数量
+     *
+     * @param begin 开始时间（包含）
+     * @param end   结束时间（不包含）
+     * @return
+     */
+    @Select("select date(create_time) as date, count(id) as count from user " +
+            "where create_time >= #{begin} and create_time < #{end} group by date(create_time)")
+    List<DailyStatisticsDTO> countGroupByCreateDate(LocalDateTime begin, LocalDateTime end);
 }
@@ -7,6 +7,7 @@ import com.sky.result.PageResult;
 import com.sky.vo.DishVO;
 
 import java.util.List;
+import java.util.Map;
 
 public interface DishService {
         /**
@@ -28,5 +29,11 @@ public interface DishService {
 
     List<DishVO> listWithFlavor(Dish dish);
 
+    /**
+     * 查询所有起售中的菜品和口味，按分类id分组
+     * @return
+     */
+    Map<Long, List<DishVO>> listEnabledWithFlavorGroupByCategory();
+
         void startOrStop(Integer status, Long id);
 }
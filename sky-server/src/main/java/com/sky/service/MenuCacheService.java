@@ -0,0 +1,76 @@
+package com.sky.service;
+
+import com.sky.entity.Category;
+import com.sky.entity.Setmeal;
+import com.sky.vo.DishVO;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+public interface MenuCacheService {
+
+    /**
+     * 查询分类下起售中的菜品列表，缓存中不存在时通过loader查询并写入缓存
+     * @param categoryId 为空时返回空列表
+     * @param loader
+     * @return 不可修改的列表
+     */
+    List<DishVO> getDishList(Long categoryId, Supplier<List<DishVO>> loader);
+
+    /**
+     * 查询分类下起售中的套餐列表，缓存中不存在时通过loader查询并写入缓存
+     * @param categoryId 为空时返回空列表
+     * @param loader
+     * @return 不可修改的列表
+     */
+    List<Setmeal> getSetmealList(Long categoryId, Supplier<List<Setmeal>> loader);
+
+    /**
+     * 查询启用的分类列表，缓存中不存在时通过loader查询并写入缓存
+     * @param type 分类类型，为空时查询所有类型
+     * @param loader
+     * @return 不可修改的列表
+     */
+    List<Category> getCategoryList(Integer type, Supplier<List<Category>> loader);
+
+    /**
+     * 预热所有分类的菜品列表缓存，预热期间缓存被清理时放弃本次预热
+     * @param loader 一次查询出所有分类的菜品列表
+     * @return 写入缓存的分类数
+     */
+    int warmDishLists(Supplier<Map<Long, List<DishVO>>> loader);
+
+    /**
+     * 清理分类下的菜品列表缓存
+     * @param categoryId
+     */
+    void evictDishList(Long categoryId);
+
+    /**
+     * 清理所有分类的菜品列表缓存
+     */
+    void evictAllDishLists();
+
+    /**
+     * 清理分类下的套餐列表缓存
+     * @param categoryId
+     */
+    void evictSetmealList(Long categoryId);
+
+    /**
+     * 清理所有分类的套餐列表缓存
+     */
+    void evictAllSetmealLists();
+
+    /**
+     * 分类修改后清理分类列表和该分类下的菜品、套餐列表缓存
+     * @param categoryId
+     */
+    void evictCategory(Long categoryId);
+
+    /**
+     * 清理所有类型的分类列表缓存
+     */
+    void evictCategoryList();
+}
@@ -0,0 +1,41 @@
+package com.sky.service;
+
+import com.sky.result.Result;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.function.Supplier;
+
+public interface MenuResponseCache {
+
+    //缓存分组
+    String DISH_LIST = "dish";
+    String SETMEAL_LIST = "setmeal";
+    String SETMEAL_DISH = "setmealDish";
+    String CATEGORY_LIST = "category";
+
+    /**
+     * 输出菜单接口的响应，缓存中不存在时通过loader查询并写入缓存
+     * @param group    缓存分组
+     * @param id       分组内的id，如分类id、套餐id
+     * @param request
+     * @param response
+     * @param loader
+     */
+    void write(String group, Object id, HttpServletRequest request, HttpServletResponse response,
+               Supplier<Result<?>> loader) throws IOException;
+
+    /**
+     * 清理分组内指定id的响应缓存
+     * @param group
+     * @param id
+     */
+    void invalidate(String group, Object id);
+
+    /**
+     * 清理分组内的全部响应缓存
+     * @param group
+     */
+    void invalidateGroup(String group);
+}
@@ -0,0 +1,18 @@
+package com.sky.service;
+
+import com.sky.vo.MenuSnapshotVO;
+
+public interface MenuSnapshotService {
+
+    /**
+     * 查询菜单，客户端版本号可识别时返回增量
+     * @param version 客户端当前的菜单版本号，首次请求为空
+     * @return
+     */
+    MenuSnapshotVO getSnapshot(String version);
+
+    /**
+     * 菜单数据发生变化，在后台重新构建快照，多次变化合并为一次构建
+     */
+    void markDirty();
+}
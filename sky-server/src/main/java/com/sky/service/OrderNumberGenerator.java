@@ -0,0 +1,10 @@
+package com.sky.service;
+
+public interface OrderNumberGenerator {
+
+    /**
+     * 生成全局唯一的订单号
+     * @return
+     */
+    String nextNumber();
+}
@@ -28,6 +28,15 @@ public interface OrderService {
     void paySuccess(String outTradeNo);
 
     PageResult pageQuery4User(int page, int pageSize, Integer status);
+    /**
+     * 用户端订单游标分页查询
+     * @param cursor 上一页返回的游标，第一页为空字符串
+     * @param pageSize
+     * @param status
+     * @param withTotal 是否统计总记录数
+     * @return
+     */
+    PageResult cursorQuery4User(String cursor, int pageSize, Integer status, boolean withTotal);
     /**
      * 查询订单详情
      * @param id
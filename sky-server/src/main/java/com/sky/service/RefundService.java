@@ -0,0 +1,26 @@
+package com.sky.service;
+
+import com.sky.entity.Orders;
+import com.sky.vo.RefundVO;
+
+public interface RefundService {
+
+    /**
+     * 创建退款任务，需要在修改订单状态的事务中调用
+     * @param orders
+     */
+    void createRefund(Orders orders);
+
+    /**
+     * 根据订单id查询退款
+     * @param orderId
+     * @return
+     */
+    RefundVO getByOrderId(Long orderId);
+
+    /**
+     * 领取并执行一批到期的退款任务
+     * @return 本批执行的任务数
+     */
+    int processDueRefunds();
+}
@@ -0,0 +1,37 @@
+package com.sky.service;
+
+import com.sky.dto.ReportExportDTO;
+import com.sky.vo.ReportExportJobVO;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+public interface ReportExportService {
+
+    /**
+     * 提交报表导出任务
+     * @param reportExportDTO
+     * @return
+     */
+    ReportExportJobVO submit(ReportExportDTO reportExportDTO);
+
+    /**
+     * 查询导出任务进度
+     * @param jobId
+     * @return
+     */
+    ReportExportJobVO getJob(String jobId);
+
+    /**
+     * 下载导出完成的文件
+     * @param jobId
+     * @param request
+     * @param response
+     */
+    void download(String jobId, HttpServletRequest request, HttpServletResponse response);
+
+    /**
+     * 清理过期的导出任务和文件
+     */
+    void cleanExpired();
+}
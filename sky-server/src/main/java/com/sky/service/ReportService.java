@@ -39,7 +39,16 @@ public interface ReportService {
     SalesTop10ReportVO getSalesTop10(LocalDate begin, LocalDate end);
     /**
      * 导出业务数据报表
+     * @param begin
+     * @param end
      * @param response
      */
-    void exportBusinessData(HttpServletResponse response);
+    void exportBusinessData(LocalDate begin, LocalDate end, HttpServletResponse response);
+    /**
+     * 汇总每日营业数据，用于回填历史数据
+     * @param begin
+     * @param end
+     * @return 汇总的天数
+     */
+    int rollupDailyMetrics(LocalDate begin, LocalDate end);
 }
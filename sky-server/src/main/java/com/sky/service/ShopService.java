@@ -0,0 +1,16 @@
+package com.sky.service;
+
+public interface ShopService {
+
+    /**
+     * 查询店铺状态
+     * @return 1 营业中 0 打烊中
+     */
+    Integer getStatus();
+
+    /**
+     * 设置店铺状态并通知所有节点
+     * @param status
+     */
+    void setStatus(Integer status);
+}
@@ -1,6 +1,7 @@
 package com.sky.service;
 
 import com.sky.vo.BusinessDataVO;
+import com.sky.vo.DashboardVO;
 import com.sky.vo.DishOverViewVO;
 import com.sky.vo.OrderOverViewVO;
 import com.sky.vo.SetmealOverViewVO;
@@ -34,4 +35,10 @@ public interface WorkspaceService {
      */
     SetmealOverViewVO getSetmealOverView();
 
+    /**
+     * 查询工作台全部数据
+     * @return
+     */
+    DashboardVO getDashboard();
+
 }
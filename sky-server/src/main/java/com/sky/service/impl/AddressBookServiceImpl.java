@@ -4,6 +4,7 @@ import com.sky.context.BaseContext;
 import com.sky.entity.AddressBook;
 import com.sky.mapper.AddressBookMapper;
 import com.sky.service.AddressBookService;
+import com.sky.service.impl.async.AsyncService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -16,6 +17,7 @@ import java.util.List;
 @RequiredArgsConstructor
 public class AddressBookServiceImpl implements AddressBookService {
     private final AddressBookMapper addressBookMapper;
+    private final AsyncService asyncService;
 
     /**
      * 条件查询
@@ -36,6 +38,8 @@ public class AddressBookServiceImpl implements AddressBookService {
         addressBook.setUserId(BaseContext.getCurrentId());
         addressBook.setIsDefault(0);
         addressBookMapper.insert(addressBook);
+        //预热配送距离，下单时直接命中缓存
+        asyncService.preloadDeliveryRange(addressBook.getId());
     }
 
     /**
@@ -56,6 +60,10 @@ public class AddressBookServiceImpl implements AddressBookService {
      */
     public void update(AddressBook addressBook) {
         addressBookMapper.update(addressBook);
+        if (addressBook.getDetail() != null) {
+            //详细地址发生变化，重新预热配送距离
+            asyncService.preloadDeliveryRange(addressBook.getId());
+        }
     }
 
     /**
@@ -0,0 +1,194 @@
+package com.sky.service.impl;
+
+import com.sky.entity.DailyShopMetrics;
+import com.sky.properties.MetricsProperties;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.apache.poi.xssf.usermodel.XSSFRow;
+import org.apache.poi.xssf.usermodel.XSSFSheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StreamUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.function.IntConsumer;
+
+/**
+ * 运营数据报表导出
+ * 模板文件只读取一次并缓存字节，每次导出从字节解析；明细数据一次读取每日汇总，
+ * 模板自带的明细行之后的行通过SXSSFWorkbook流式写出，内存中只保留固定数量的行
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class BusinessReportExporter {
+
+    private static final String TEMPLATE = "template/运营数据报表模板.xlsx";
+
+    private static final String SHEET_NAME = "Sheet1";
+
+    //模板中明细数据的第一行和最后一行
+    private static final int DETAIL_FIRST_ROW = 7;
+    private static final int DETAIL_LAST_ROW = 36;
+
+    //明细数据的第一列和最后一列：日期、营业额、有效订单、订单完成率、平均客单价、新增用户数
+    private static final int DETAIL_FIRST_CELL = 1;
+    private static final int DETAIL_LAST_CELL = 6;
+
+    //读取数据完成、明细行填写完成时的进度
+    private static final int DATA_LOADED_PROGRESS = 10;
+    private static final int ROWS_WRITTEN_PROGRESS = 90;
+
+    private final DailyMetricsService dailyMetricsService;
+
+    private final MetricsProperties metricsProperties;
+
+    private volatile byte[] templateBytes;
+
+    /**
+     * 导出begin到end（包含）的运营数据
+     *
+     * @param begin
+     * @param end
+     * @param out
+     */
+    public void export(LocalDate begin, LocalDate end, OutputStream out) throws IOException {
+        export(begin, end, out, progress -> {
+        });
+    }
+
+    /**
+     * 导出begin到end（包含）的运营数据，并报告导出进度
+     *
+     * @param begin
+     * @param end
+     * @param out
+     * @param progress 接收0-99的进度，写出完成后由调用方标记为完成
+     */
+    public void export(LocalDate begin, LocalDate end, OutputStream out, IntConsumer progress) throws IOException {
+        DailyShopMetrics[] metrics = dailyMetricsService.getDailyMetrics(begin, end);
+        progress.accept(DATA_LOADED_PROGRESS);
+
+        XSSFWorkbook template;
+        try (InputStream in = new ByteArrayInputStream(getTemplateBytes())) {
+            template = new XSSFWorkbook(in);
+        }
+        XSSFSheet templateSheet = template.getSheet(SHEET_NAME);
+
+        //概览数据由每日数据累加，不再单独查询
+        fillOverview(templateSheet, begin, end, metrics);
+
+        //模板自带的明细行直接填写，保留模板样式
+        int templateRows = Math.min(metrics.length, DETAIL_LAST_ROW - DETAIL_FIRST_ROW + 1);
+        for (int i = 0; i < templateRows; i++) {
+            fillDetail(templateSheet.getRow(DETAIL_FIRST_ROW + i), metrics[i]);
+        }
+        reportRows(progress, templateRows, metrics.length);
+
+        //超出模板的明细行沿用模板最后一行的样式，流式写出
+        CellStyle[] styles = new CellStyle[DETAIL_LAST_CELL + 1];
+        XSSFRow styleRow = templateSheet.getRow(DETAIL_LAST_ROW);
+        for (int c = DETAIL_FIRST_CELL; c <= DETAIL_LAST_CELL; c++) {
+            styles[c] = styleRow.getCell(c).getCellStyle();
+        }
+
+        SXSSFWorkbook workbook = new SXSSFWorkbook(template, metricsProperties.getExportRowWindow());
+        workbook.setCompressTempFiles(true);
+        try {
+            Sheet sheet = workbook.getSheet(SHEET_NAME);
+            for (int i = templateRows; i < metrics.length; i++) {
+                Row row = sheet.createRow(DETAIL_FIRST_ROW + i);
+                for (int c = DETAIL_FIRST_CELL; c <= DETAIL_LAST_CELL; c++) {
+                    row.createCell(c).setCellStyle(styles[c]);
+                }
+                fillDetail(row, metrics[i]);
+                reportRows(progress, i + 1, metrics.length);
+            }
+            workbook.write(out);
+        } finally {
+            //删除流式写出时产生的临时文件
+            workbook.dispose();
+            workbook.close();
+        }
+    }
+
+    //按已填写的明细行数计算进度，90之后为生成文件
+    private void reportRows(IntConsumer progress, int written, int total) {
+        int rowsProgress = total == 0 ? ROWS_WRITTEN_PROGRESS
+                : DATA_LOADED_PROGRESS + (int) ((long) (ROWS_WRITTEN_PROGRESS - DATA_LOADED_PROGRESS) * written / total);
+        progress.accept(rowsProgress);
+    }
+
+    private void fillOverview(XSSFSheet sheet, LocalDate begin, LocalDate end, DailyShopMetrics[] metrics) {
+        BigDecimal turnover = BigDecimal.ZERO;
+        int totalOrderCount = 0;
+        int validOrderCount = 0;
+        int newUsers = 0;
+        for (DailyShopMetrics daily : metrics) {
+            turnover = turnover.add(daily.getTurnover());
+            totalOrderCount += daily.getTotalOrders();
+            validOrderCount += daily.getValidOrders();
+            newUsers += daily.getNewUsers();
+        }
+
+        sheet.getRow(1).getCell(1).setCellValue("时间：" + begin + "至" + end);
+        XSSFRow row = sheet.getRow(3);
+        row.getCell(2).setCellValue(turnover.doubleValue());
+        row.getCell(4).setCellValue(completionRate(validOrderCount, totalOrderCount));
+        row.getCell(6).setCellValue(newUsers);
+        row = sheet.getRow(4);
+        row.getCell(2).setCellValue(validOrderCount);
+        row.getCell(4).setCellValue(unitPrice(turnover, validOrderCount));
+    }
+
+    private void fillDetail(Row row, DailyShopMetrics daily) {
+        row.getCell(1).setCellValue(daily.getMetricDate().toString());
+        row.getCell(2).setCellValue(daily.getTurnover().doubleValue());
+        row.getCell(3).setCellValue(daily.getValidOrders());
+        row.getCell(4).setCellValue(completionRate(daily.getValidOrders(), daily.getTotalOrders()));
+        row.getCell(5).setCellValue(unitPrice(daily.getTurnover(), daily.getValidOrders()));
+        row.getCell(6).setCellValue(daily.getNewUsers());
+    }
+
+    //订单完成率：有效订单数 / 总订单数
+    private double completionRate(int validOrderCount, int totalOrderCount) {
+        return totalOrderCount == 0 ? 0.0 : (double) validOrderCount / totalOrderCount;
+    }
+
+    //平均客单价：营业额 / 有效订单数
+    private double unitPrice(BigDecimal turnover, int validOrderCount) {
+        return validOrderCount == 0 ? 0.0 : turnover.doubleValue() / validOrderCount;
+    }
+
+    /**
+     * 模板文件的字节，首次使用时从classpath读取
+     *
+     * @return
+     */
+    private byte[] getTemplateBytes() throws IOException {
+        byte[] bytes = templateBytes;
+        if (bytes == null) {
+            synchronized (this) {
+                bytes = templateBytes;
+                if (bytes == null) {
+                    try (InputStream in = new ClassPathResource(TEMPLATE).getInputStream()) {
+                        bytes = StreamUtils.copyToByteArray(in);
+                    }
+                    templateBytes = bytes;
+                    log.info("加载报表模板：{}，{}字节", TEMPLATE, bytes.length);
+                }
+            }
+        }
+        return bytes;
+    }
+}
@@ -14,6 +14,7 @@ import com.sky.mapper.DishMapper;
 import com.sky.mapper.SetmealMapper;
 import com.sky.result.PageResult;
 import com.sky.service.CategoryService;
+import com.sky.service.MenuCacheService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.BeanUtils;
@@ -33,6 +34,8 @@ public class CategoryServiceImpl implements CategoryService {
     private final CategoryMapper categoryMapper;
     private final DishMapper dishMapper;
     private final SetmealMapper setmealMapper;
+    private final MenuCacheService menuCacheService;
+    private final MenuCountService menuCountService;
 
     /**
      * 新增分类
@@ -73,14 +76,21 @@ public class CategoryServiceImpl implements CategoryService {
      */
     public void deleteById(Long id) {
         //查询当前分类是否关联了菜品，如果关联了就抛出业务异常
-        Integer count = dishMapper.countByCategoryId(id);
+        //Redis中的数量可能存在偏差，为0时再查询数据库确认，避免留下没有分类的菜品
+        int count = menuCountService.countDishByCategory(id);
+        if (count == 0) {
+            count = dishMapper.countByCategoryId(id);
+        }
         if(count > 0){
             //当前分类下有菜品，不能删除
             throw new DeletionNotAllowedException(MessageConstant.CATEGORY_BE_RELATED_BY_DISH);
         }
 
         //查询当前分类是否关联了套餐，如果关联了就抛出业务异常
-        count = setmealMapper.countByCategoryId(id);
+        count = menuCountService.countSetmealByCategory(id);
+        if (count == 0) {
+            count = setmealMapper.countByCategoryId(id);
+        }
         if(count > 0){
             //当前分类下有菜品，不能删除
             throw new DeletionNotAllowedException(MessageConstant.CATEGORY_BE_RELATED_BY_SETMEAL);
@@ -126,6 +136,6 @@ public class CategoryServiceImpl implements CategoryService {
      * @return
      */
     public List<Category> list(Integer type) {
-        return categoryMapper.list(type);
+        return menuCacheService.getCategoryList(type, () -> categoryMapper.list(type));
     }
 }
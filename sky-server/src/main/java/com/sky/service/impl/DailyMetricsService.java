@@ -0,0 +1,183 @@
+package com.sky.service.impl;
+
+import com.sky.constant.MessageConstant;
+import com.sky.dto.DailyStatisticsDTO;
+import com.sky.entity.DailyShopMetrics;
+import com.sky.exception.ReportBusinessException;
+import com.sky.mapper.DailyShopMetricsMapper;
+import com.sky.mapper.UserMapper;
+import com.sky.properties.MetricsProperties;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 每日营业数据
+ * 已结束的日期从daily_shop_metrics汇总表读取，汇总表中缺少或在当天结束前汇总的日期查询后补写；当天的数据实时查询
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class DailyMetricsService {
+
+    private final DailyShopMetricsMapper dailyShopMetricsMapper;
+
+    private final UserMapper userMapper;
+
+    private final MetricsProperties metricsProperties;
+
+    /**
+     * 查询begin到end（包含）每天的营业数据
+     *
+     * @param begin
+     * @param end
+     * @return 按日期排列，下标为距begin的天数，没有数据的日期各项为0
+     */
+    public DailyShopMetrics[] getDailyMetrics(LocalDate begin, LocalDate end) {
+        //需要开始和结束日期且不能超过最大天数，开始日期晚于结束日期时返回空的统计结果
+        if (begin == null || end == null || ChronoUnit.DAYS.between(begin, end) + 1 > metricsProperties.getMaxDays()) {
+            throw new ReportBusinessException(MessageConstant.METRICS_DATE_RANGE_INVALID);
+        }
+        int days = (int) Math.max(ChronoUnit.DAYS.between(begin, end) + 1, 0);
+        DailyShopMetrics[] metrics = new DailyShopMetrics[days];
+        LocalDate today = LocalDate.now();
+
+        //已结束的日期读取汇总表
+        LocalDate closedEnd = end.isBefore(today) ? end : today.minusDays(1);
+        if (!closedEnd.isBefore(begin)) {
+            for (DailyShopMetrics daily : dailyShopMetricsMapper.getByDateRange(begin, closedEnd)) {
+                //当天结束前汇总的数据不完整，按缺少处理
+                if (isClosed(daily)) {
+                    metrics[dayIndex(begin, daily.getMetricDate())] = daily;
+                }
+            }
+            //汇总表中缺少的日期（尚未回填）查询后写入汇总表
+            int first = -1;
+            int last = -1;
+            int closedDays = dayIndex(begin, closedEnd) + 1;
+            for (int i = 0; i < closedDays; i++) {
+                if (metrics[i] == null) {
+                    first = first < 0 ? i : first;
+                    last = i;
+                }
+            }
+            if (first >= 0) {
+                LocalDate missingBegin = begin.plusDays(first);
+                LocalDate missingEnd = begin.plusDays(last);
+                boolean save = last - first + 1 <= metricsProperties.getBackfillMaxDays();
+                if (save) {
+                    log.info("汇总表缺少{}至{}的数据，补充汇总", missingBegin, missingEnd);
+                } else {
+                    //查询请求中不大批量写入汇总表，需要通过回填接口补充
+                    log.warn("汇总表缺少{}至{}的数据，超过{}天，只查询不写入", missingBegin, missingEnd, metricsProperties.getBackfillMaxDays());
+                }
+                for (DailyShopMetrics daily : aggregateInChunks(missingBegin, missingEnd, save)) {
+                    metrics[dayIndex(begin, daily.getMetricDate())] = daily;
+                }
+            }
+        }
+
+        //当天的数据实时查询
+        if (!today.isBefore(begin) && !today.isAfter(end)) {
+            metrics[dayIndex(begin, today)] = aggregate(today, today)[0];
+        }
+
+        for (int i = 0; i < days; i++) {
+            if (metrics[i] == null) {
+                metrics[i] = DailyShopMetrics.empty(begin.plusDays(i));
+            }
+        }
+        return metrics;
+    }
+
+    /**
+     * 汇总begin到end（包含）每天的营业数据并写入汇总表，按天数分批查询，天数不能超过最大天数
+     *
+     * @param begin
+     * @param end
+     * @return 汇总结果
+     */
+    public List<DailyShopMetrics> rollup(LocalDate begin, LocalDate end) {
+        if (begin == null || end == null || begin.isAfter(end)
+                || ChronoUnit.DAYS.between(begin, end) + 1 > metricsProperties.getMaxDays()) {
+            throw new ReportBusinessException(MessageConstant.METRICS_DATE_RANGE_INVALID);
+        }
+        return aggregateInChunks(begin, end, true);
+    }
+
+    /**
+     * 按天数分批汇总begin到end（包含）每天的营业数据
+     *
+     * @param begin
+     * @param end
+     * @param save  是否写入汇总表
+     * @return 汇总结果
+     */
+    private List<DailyShopMetrics> aggregateInChunks(LocalDate begin, LocalDate end, boolean save) {
+        DailyShopMetrics[] result = new DailyShopMetrics[dayIndex(begin, end) + 1];
+        int chunkDays = Math.max(metricsProperties.getRollupChunkDays(), 1);
+        for (LocalDate chunkBegin = begin; !chunkBegin.isAfter(end); chunkBegin = chunkBegin.plusDays(chunkDays)) {
+            LocalDate chunkEnd = chunkBegin.plusDays(chunkDays - 1);
+            if (chunkEnd.isAfter(end)) {
+                chunkEnd = end;
+            }
+            DailyShopMetrics[] chunk = aggregate(chunkBegin, chunkEnd);
+            if (save) {
+                dailyShopMetricsMapper.upsertBatch(Arrays.asList(chunk));
+            }
+            System.arraycopy(chunk, 0, result, dayIndex(begin, chunkBegin), chunk.length);
+        }
+        return Arrays.asList(result);
+    }
+
+    /**
+     * 汇总时间在当天结束之后，数据才是完整的
+     *
+     * @param daily
+     * @return
+     */
+    private boolean isClosed(DailyShopMetrics daily) {
+        return daily.getUpdateTime() != null
+                && !daily.getUpdateTime().isBefore(LocalDateTime.of(daily.getMetricDate().plusDays(1), LocalTime.MIN));
+    }
+
+    /**
+     * 查询订单表和用户表，汇总begin到end（包含）每天的营业数据
+     *
+     * @param begin
+     * @param end
+     * @return 下标为距begin的天数
+     */
+    private DailyShopMetrics[] aggregate(LocalDate begin, LocalDate end) {
+        int days = (int) ChronoUnit.DAYS.between(begin, end) + 1;
+        LocalDateTime beginTime = LocalDateTime.of(begin, LocalTime.MIN);
+        LocalDateTime endTime = LocalDateTime.of(end.plusDays(1), LocalTime.MIN);
+        LocalDateTime now = LocalDateTime.now();
+
+        DailyShopMetrics[] metrics = new DailyShopMetrics[days];
+        for (int i = 0; i < days; i++) {
+            metrics[i] = DailyShopMetrics.empty(begin.plusDays(i));
+            metrics[i].setUpdateTime(now);
+        }
+        for (DailyShopMetrics daily : dailyShopMetricsMapper.aggregateOrders(beginTime, endTime)) {
+            daily.setNewUsers(0);
+            daily.setUpdateTime(now);
+            metrics[dayIndex(begin, daily.getMetricDate())] = daily;
+        }
+        for (DailyStatisticsDTO daily : userMapper.countGroupByCreateDate(beginTime, endTime)) {
+            metrics[dayIndex(begin, daily.getDate())].setNewUsers(daily.getCount());
+        }
+        return metrics;
+    }
+
+    private int dayIndex(LocalDate begin, LocalDate date) {
+        return (int) ChronoUnit.DAYS.between(begin, date);
+    }
+}
@@ -0,0 +1,221 @@
+package com.sky.service.impl;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONArray;
+import com.alibaba.fastjson.JSONObject;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.sky.entity.AddressBook;
+import com.sky.exception.OrderBusinessException;
+import com.sky.properties.DeliveryProperties;
+import com.sky.utils.HttpClientUtil;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang.StringUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.util.DigestUtils;
+
+import javax.annotation.PostConstruct;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 配送范围校验
+ * 地址坐标和配送距离采用 本地缓存 + Redis 两级缓存，命中时不再调用百度地图接口
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class DeliveryRangeService {
+
+    private static final String GEOCODING_URL = "https://api.map.baidu.com/geocoding/v3";
+    private static final String DRIVING_URL = "https://api.map.baidu.com/directionlite/v1/driving";
+
+    private static final String GEO_KEY_PREFIX = "delivery:geo:";
+    private static final String DISTANCE_KEY_PREFIX = "delivery:distance:";
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final DeliveryProperties deliveryProperties;
+
+    @Value("${sky.shop.address}")
+    private String shopAddress;
+
+    @Value("${sky.baidu.ak}")
+    private String ak;
+
+    //地址 -> "lat,lng"
+    private Cache<String, String> geoCache;
+    //"店铺坐标:收货坐标" -> 驾车距离（米）
+    private Cache<String, Integer> distanceCache;
+
+    //店铺经纬度坐标，启动时解析一次
+    private volatile String shopLngLat;
+
+    @PostConstruct
+    public void init() {
+        geoCache = Caffeine.newBuilder()
+                .maximumSize(deliveryProperties.getLocalCacheSize())
+                .expireAfterWrite(deliveryProperties.getLocalCacheMinutes(), TimeUnit.MINUTES)
+                .build();
+        distanceCache = Caffeine.newBuilder()
+                .maximumSize(deliveryProperties.getLocalCacheSize())
+                .expireAfterWrite(deliveryProperties.getLocalCacheMinutes(), TimeUnit.MINUTES)
+                .build();
+        try {
+            shopLngLat = getShopLngLat();
+            log.info("店铺坐标解析完成：{}", shopLngLat);
+        } catch (Exception e) {
+            //启动时解析失败不影响服务启动，首次下单时重试
+            log.warn("店铺地址解析失败，将在下单时重试：{}", e.getMessage());
+        }
+    }
+
+    /**
+     * 检查客户的收货地址是否超出配送范围
+     *
+     * @param addressBook
+     */
+    public void checkOutOfRange(AddressBook addressBook) {
+        int distance = getDistance(buildAddress(addressBook));
+        if (distance > deliveryProperties.getMaxDistance()) {
+            //配送距离超过最大配送距离
+            throw new OrderBusinessException("超出配送范围");
+        }
+    }
+
+    /**
+     * 预先计算并缓存收货地址的配送距离，地址簿新增、修改时调用
+     *
+     * @param addressBook
+     */
+    public void preload(AddressBook addressBook) {
+        try {
+            int distance = getDistance(buildAddress(addressBook));
+            log.info("预热配送距离，地址簿id：{}，距离：{}米", addressBook.getId(), distance);
+        } catch (Exception e) {
+            log.warn("预热配送距离失败，地址簿id：{}，原因：{}", addressBook.getId(), e.getMessage());
+        }
+    }
+
+    /**
+     * 获取店铺到收货地址的驾车距离
+     *
+     * @param address
+     * @return
+     */
+    private int getDistance(String address) {
+        String origin = getShopLngLat();
+        String destination = getLngLat(address, "收货地址解析失败");
+
+        String key = origin + ":" + destination;
+        Integer distance = distanceCache.getIfPresent(key);
+        if (distance != null) {
+            return distance;
+        }
+
+        String redisKey = DISTANCE_KEY_PREFIX + key;
+        String cacheValue = stringRedisTemplate.opsForValue().get(redisKey);
+        if (cacheValue != null) {
+            distance = Integer.valueOf(cacheValue);
+        } else {
+            distance = planDriving(origin, destination);
+            stringRedisTemplate.opsForValue().set(redisKey, String.valueOf(distance),
+                    deliveryProperties.getRedisCacheDays(), TimeUnit.DAYS);
+        }
+        distanceCache.put(key, distance);
+        return distance;
+    }
+
+    private String getShopLngLat() {
+        String lngLat = shopLngLat;
+        if (lngLat == null) {
+            lngLat = getLngLat(shopAddress, "店铺地址解析失败");
+            shopLngLat = lngLat;
+        }
+        return lngLat;
+    }
+
+    /**
+     * 获取地址的经纬度坐标，依次查询本地缓存、Redis、百度地图接口
+     *
+     * @param address
+     * @param errorMsg
+     * @return
+     */
+    private String getLngLat(String address, String errorMsg) {
+        String lngLat = geoCache.getIfPresent(address);
+        if (lngLat != null) {
+            return lngLat;
+        }
+
+        String redisKey = GEO_KEY_PREFIX + DigestUtils.md5DigestAsHex(address.getBytes(StandardCharsets.UTF_8));
+        lngLat = stringRedisTemplate.opsForValue().get(redisKey);
+        if (lngLat == null) {
+            lngLat = geocode(address, errorMsg);
+            stringRedisTemplate.opsForValue().set(redisKey, lngLat,
+                    deliveryProperties.getRedisCacheDays(), TimeUnit.DAYS);
+        }
+        geoCache.put(address, lngLat);
+        return lngLat;
+    }
+
+    /**
+     * 调用百度地图地理编码接口
+     *
+     * @param address
+     * @param errorMsg
+     * @return
+     */
+    private String geocode(String address, String errorMsg) {
+        Map<String, String> map = new HashMap<>();
+        map.put("address", address);
+        map.put("output", "json");
+        map.put("ak", ak);
+
+        String json = HttpClientUtil.doGet(GEOCODING_URL, map);
+        JSONObject jsonObject = JSON.parseObject(json);
+        if (jsonObject == null || !"0".equals(jsonObject.getString("status"))) {
+            throw new OrderBusinessException(errorMsg);
+        }
+
+        //数据解析
+        JSONObject location = jsonObject.getJSONObject("result").getJSONObject("location");
+        return location.getString("lat") + "," + location.getString("lng");
+    }
+
+    /**
+     * 调用百度地图驾车路线规划接口
+     *
+     * @param origin
+     * @param destination
+     * @return
+     */
+    private int planDriving(String origin, String destination) {
+        Map<String, String> map = new HashMap<>();
+        map.put("origin", origin);
+        map.put("destination", destination);
+        map.put("steps_info", "0");
+        map.put("ak", ak);
+
+        String json = HttpClientUtil.doGet(DRIVING_URL, map);
+        JSONObject jsonObject = JSON.parseObject(json);
+        if (jsonObject == null || !"0".equals(jsonObject.getString("status"))) {
+            throw new OrderBusinessException("配送路线规划失败");
+        }
+
+        //数据解析
+        JSONObject result = jsonObject.getJSONObject("result");
+        JSONArray jsonArray = result.getJSONArray("routes");
+        return jsonArray.getJSONObject(0).getIntValue("distance");
+    }
+
+    private String buildAddress(AddressBook addressBook) {
+        return StringUtils.defaultString(addressBook.getCityName())
+                + StringUtils.defaultString(addressBook.getDistrictName())
+                + StringUtils.defaultString(addressBook.getDetail());
+    }
+}
@@ -1,6 +1,5 @@
 package com.sky.service.impl;
 
-import com.alibaba.fastjson.JSON;
 import com.github.pagehelper.Page;
 import com.github.pagehelper.PageHelper;
 import com.github.xiaoymin.knife4j.core.util.CollectionUtils;
@@ -19,19 +18,16 @@ import com.sky.service.DishService;
 import com.sky.vo.DishVO;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.redisson.api.RLock;
-import org.redisson.api.RedissonClient;
 import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
-import java.util.concurrent.TimeUnit;
-
-import static com.sky.utils.RandomTtlUtil.getRandomTtl;
+import java.util.Map;
 
 
 @Service
@@ -42,14 +38,9 @@ public class DishServiceImpl implements DishService {
         private final DishFlavorMapper dishFlavorMapper;
         private final DishMapper dishMapper;
         private final SetmealDishMapper setmealDishMapper;
-        private final StringRedisTemplate stringRedisTemplate;
-        private final RedissonClient redissonClient;
-
-
-    private static final String DISH_KEY_PREFIX = "dish:";
-    private static final String NULL_VALUE = "NULL";
-    private static final long NULL_CACHE_TTL = 300;
-    private static final String LOCK_KEY_PREFIX = "lock:dish:";
+        private final MenuAggregateCache menuAggregateCache;
+        private final MenuIdFilter menuIdFilter;
+        private final MenuCountService menuCountService;
 
         /**
          * 新增菜品
@@ -63,8 +54,9 @@ public class DishServiceImpl implements DishService {
             Dish dish = new Dish();
             BeanUtils.copyProperties(dishDTO, dish);
             dishMapper.insert(dish);
-            String cacheKey = DISH_KEY_PREFIX + dish.getId();
-            stringRedisTemplate.delete(cacheKey);
+            menuIdFilter.addDish(dish.getId());
+            menuCountService.dishChanged(null, null, dish.getCategoryId(), dish.getStatus());
+            menuAggregateCache.evictDishes(Collections.singletonList(dish.getId()));
             //获取insert语句生成的主键值
             long dishId = dish.getId();
             //向口味表插入n条数据
@@ -92,8 +84,10 @@ public class DishServiceImpl implements DishService {
         @Override
         public void deleteBatch(List<Long> ids) {
         //判断当前菜品是否能够删除----是否存在起售中的商品
+        List<Dish> dishList = new ArrayList<>(ids.size());
         for(Long id:ids){
             Dish dish = dishMapper.getById(id);
+            dishList.add(dish);
             if( dish.getStatus()== StatusConstant.ENABLE){
                 //当前菜品下存在起售中的商品，不能删除
                 throw new DeletionNotAllowedException(MessageConstant.DISH_ON_SALE);
@@ -119,9 +113,10 @@ public class DishServiceImpl implements DishService {
             dishMapper.deleteByIds(ids);
             //删除菜品关联的口味数据
             dishFlavorMapper.deleteByDishIds(ids);
-
-
-
+            menuAggregateCache.evictDishes(ids);
+            for (Dish dish : dishList) {
+                menuCountService.dishChanged(dish.getCategoryId(), dish.getStatus(), null, null);
+            }
     }
 
     /**
@@ -131,66 +126,22 @@ public class DishServiceImpl implements DishService {
      */
     @Override
     public DishVO getByIdWithFlavor(Long id) {
-        String cacheKey = DISH_KEY_PREFIX + id;
-        String lockKey = LOCK_KEY_PREFIX + id;
-
-
-        String cacheValue = stringRedisTemplate.opsForValue().get(cacheKey);
-        if (cacheValue != null) {
-            if (NULL_VALUE.equals(cacheValue)) {
-                log.info("命中空值缓存，菜品ID: {}", id);
+        //布隆过滤器判断不存在的id不再查询缓存和数据库
+        if (!menuIdFilter.mightContainDish(id)) {
+            return null;
+        }
+        return menuAggregateCache.getDish(id, () -> {
+            Dish dish = dishMapper.getById(id);
+            if (dish == null) {
+                menuIdFilter.recordDishFalsePositive();
                 return null;
             }
-            Dish dish = JSON.parseObject(cacheValue, Dish.class);
-            List<DishFlavor> flavors = dishFlavorMapper.getByDishId(id);
+            //将查询到的菜品和口味封装到DishVO中
             DishVO dishVO = new DishVO();
             BeanUtils.copyProperties(dish, dishVO);
-            dishVO.setFlavors(flavors);
+            dishVO.setFlavors(dishFlavorMapper.getByDishId(id));
             return dishVO;
-        }
-        RLock lock = redissonClient.getLock(lockKey);
-        try {
-            boolean locked = lock.tryLock(100, 3000, TimeUnit.MILLISECONDS);
-            if (locked) {
-                cacheValue = stringRedisTemplate.opsForValue().get(cacheKey);
-                if (cacheValue != null) {
-                    Dish dish = JSON.parseObject(cacheValue, Dish.class);
-                    List<DishFlavor> flavors = dishFlavorMapper.getByDishId(id);
-                    //将查询到的菜品和口味封装到DishVO中
-                    DishVO dishVO = new DishVO();
-                    BeanUtils.copyProperties(dish, dishVO);
-                    dishVO.setFlavors(flavors);
-                    return dishVO;
-                }
-                Dish dish = dishMapper.getById(id);
-                String jsonString = JSON.toJSONString(dish);
-                if (dish == null) {
-                    // 缓存空对象，短TTL
-                    stringRedisTemplate.opsForValue().set(cacheKey, NULL_VALUE,
-                            NULL_CACHE_TTL, TimeUnit.SECONDS);
-                    log.info("缓存空对象，菜品ID: {}", id);
-                } else {
-                    stringRedisTemplate.opsForValue().set(cacheKey, jsonString,
-                            getRandomTtl(), TimeUnit.SECONDS);
-                }
-                List<DishFlavor> flavors = dishFlavorMapper.getByDishId(id);
-                DishVO dishVO = new DishVO();
-                BeanUtils.copyProperties(dish, dishVO);
-                dishVO.setFlavors(flavors);
-                return dishVO;
-            }else {
-                log.info("获取锁失败，等待后重试，菜品ID: {}", id);
-                Thread.sleep(50);
-                return getByIdWithFlavor(id);
-            }
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            throw new RuntimeException("获取锁失败", e);
-        } finally {
-            if (lock.isHeldByCurrentThread()) {
-                lock.unlock();
-            }
-        }
+        });
     }
         /**
          * 更新菜品
@@ -199,10 +150,16 @@ public class DishServiceImpl implements DishService {
         @Transactional
         @Override
         public void updateWithFlavor(DishDTO dishDTO) {
+            Dish old = dishMapper.getById(dishDTO.getId());
             //向菜品表更新1条数据
             Dish dish = new Dish();
             BeanUtils.copyProperties(dishDTO, dish);
             dishMapper.update(dish);
+            if (old != null) {
+                menuCountService.dishChanged(old.getCategoryId(), old.getStatus(),
+                        dish.getCategoryId() != null ? dish.getCategoryId() : old.getCategoryId(),
+                        dish.getStatus() != null ? dish.getStatus() : old.getStatus());
+            }
             //删除菜品关联的口味数据
             dishFlavorMapper.deleteByDishId(dishDTO.getId());
             //向口味表插入n条数据
@@ -213,6 +170,7 @@ public class DishServiceImpl implements DishService {
                 });
                 dishFlavorMapper.insertBatch(flavors);
             }
+            menuAggregateCache.evictDishes(Collections.singletonList(dishDTO.getId()));
         }
 
     @Override
@@ -227,24 +185,63 @@ public class DishServiceImpl implements DishService {
     @Override
     public List<DishVO> listWithFlavor(Dish dish) {
         List<Dish> dishList = dishMapper.list(dish);
-        List<DishVO> dishVOList = new ArrayList<>();
+        return toDishVOList(dishList);
+    }
+
+    /**
+     * 查询所有起售中的菜品和口味，按分类id分组
+     * @return
+     */
+    @Override
+    public Map<Long, List<DishVO>> listEnabledWithFlavorGroupByCategory() {
+        Dish dish = Dish.builder().status(StatusConstant.ENABLE).build();
+        List<DishVO> dishVOList = toDishVOList(dishMapper.list(dish));
+
+        Map<Long, List<DishVO>> dishVOMap = new HashMap<>();
+        for (DishVO dishVO : dishVOList) {
+            dishVOMap.computeIfAbsent(dishVO.getCategoryId(), k -> new ArrayList<>()).add(dishVO);
+        }
+        return dishVOMap;
+    }
 
-        for (Dish dish1 : dishList) {
+    /**
+     * 一次查询出所有菜品的口味，封装为DishVO
+     * @param dishList
+     * @return
+     */
+    private List<DishVO> toDishVOList(List<Dish> dishList) {
+        List<DishVO> dishVOList = new ArrayList<>(dishList.size());
+        if (dishList.isEmpty()) {
+            return dishVOList;
+        }
+
+        List<Long> dishIds = new ArrayList<>(dishList.size());
+        for (Dish dish : dishList) {
+            dishIds.add(dish.getId());
+        }
+        //按菜品id分组口味
+        Map<Long, List<DishFlavor>> flavorMap = new HashMap<>(dishList.size() * 2);
+        for (DishFlavor flavor : dishFlavorMapper.getByDishIds(dishIds)) {
+            flavorMap.computeIfAbsent(flavor.getDishId(), k -> new ArrayList<>()).add(flavor);
+        }
+
+        for (Dish dish : dishList) {
             DishVO dishVO = new DishVO();
-            BeanUtils.copyProperties(dish1, dishVO);
-            List<DishFlavor> flavors = dishFlavorMapper.getByDishId(dish1.getId());
-            dishVO.setFlavors(flavors);
+            BeanUtils.copyProperties(dish, dishVO);
+            dishVO.setFlavors(flavorMap.getOrDefault(dish.getId(), new ArrayList<>()));
             dishVOList.add(dishVO);
         }
-
         return dishVOList;
-
     }
 
     @Override
     public void startOrStop(Integer status, Long id) {
+        Dish old = dishMapper.getById(id);
             Dish dish = Dish.builder().status(status).id(id).build();
         dishMapper.update(dish);
-
+        if (old != null) {
+            menuCountService.dishChanged(old.getCategoryId(), old.getStatus(), old.getCategoryId(), status);
+        }
+        menuAggregateCache.evictDishes(Collections.singletonList(id));
     }
 }
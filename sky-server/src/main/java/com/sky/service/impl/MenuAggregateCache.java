@@ -0,0 +1,225 @@
+package com.sky.service.impl;
+
+import com.sky.properties.MenuCacheProperties;
+import com.sky.vo.DishVO;
+import com.sky.vo.SetmealVO;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RLock;
+import org.redisson.api.RedissonClient;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.types.Expiration;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import static com.sky.utils.RandomTtlUtil.getRandomTtl;
+
+/**
+ * 菜品详情（含口味）、套餐详情（含套餐菜品）缓存
+ * 缓存完整的聚合对象，命中时不再查询数据库；值使用MenuAggregateCodec二进制编码。
+ * 未命中时同一节点的并发请求由SingleFlightLoader合并为一次加载，节点之间用分布式锁；
+ * 缓存逻辑过期后先返回旧值，再由后台线程刷新。
+ * 数据修改后在事务提交后用一条DEL命令删除所有受影响的缓存
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class MenuAggregateCache {
+
+    private static final String DISH_KEY_PREFIX = "dish:detail:";
+    private static final String SETMEAL_KEY_PREFIX = "setmeal:detail:";
+    private static final String DISH_LOCK_KEY_PREFIX = "lock:dish:";
+    private static final String SETMEAL_LOCK_KEY_PREFIX = "lock:setmeal:";
+    private static final long NULL_CACHE_TTL = 300;
+    //等待其他节点写入缓存的轮询间隔、分布式锁的持有时间，单位 毫秒
+    private static final long LOCK_RETRY_INTERVAL = 50;
+    private static final long LOCK_LEASE_MILLIS = 3000;
+
+    private final StringRedisTemplate stringRedisTemplate;
+
+    private final RedissonClient redissonClient;
+
+    private final SingleFlightLoader singleFlightLoader;
+
+    private final MenuCacheProperties menuCacheProperties;
+
+    /**
+     * 查询菜品详情，缓存未命中时加锁调用loader查询数据库
+     *
+     * @param id
+     * @param loader 查询菜品和口味，菜品不存在时返回null
+     * @return
+     */
+    public DishVO getDish(Long id, Supplier<DishVO> loader) {
+        return get(DISH_KEY_PREFIX + id, DISH_LOCK_KEY_PREFIX + id, loader,
+                MenuAggregateCodec::decodeDish, MenuAggregateCodec::encodeDish);
+    }
+
+    /**
+     * 查询套餐详情，缓存未命中时加锁调用loader查询数据库
+     *
+     * @param id
+     * @param loader 查询套餐和套餐菜品，套餐不存在时返回null
+     * @return
+     */
+    public SetmealVO getSetmeal(Long id, Supplier<SetmealVO> loader) {
+        return get(SETMEAL_KEY_PREFIX + id, SETMEAL_LOCK_KEY_PREFIX + id, loader,
+                MenuAggregateCodec::decodeSetmeal, MenuAggregateCodec::encodeSetmeal);
+    }
+
+    /**
+     * 删除菜品详情缓存，存在事务时在提交后删除
+     *
+     * @param ids
+     */
+    public void evictDishes(Collection<Long> ids) {
+        evict(DISH_KEY_PREFIX, ids);
+    }
+
+    /**
+     * 删除套餐详情缓存，存在事务时在提交后删除
+     *
+     * @param ids
+     */
+    public void evictSetmeals(Collection<Long> ids) {
+        evict(SETMEAL_KEY_PREFIX, ids);
+    }
+
+    private <T> T get(String key, String lockKey, Supplier<T> loader,
+                      Function<byte[], T> decoder, BiFunction<T, Long, byte[]> encoder) {
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        Supplier<T> cacheLoader = () -> loadAndCache(key, keyBytes, lockKey, loader, decoder, encoder);
+
+        byte[] cacheValue = read(keyBytes);
+        if (cacheValue != null) {
+            if (MenuAggregateCodec.isNull(cacheValue)) {
+                log.info("命中空值缓存：{}", key);
+                return null;
+            }
+            T value = decoder.apply(cacheValue);
+            //逻辑过期后先返回旧值，由后台线程重新加载
+            if (MenuAggregateCodec.expireAt(cacheValue) < System.currentTimeMillis()) {
+                singleFlightLoader.refresh(key, cacheLoader, value);
+            }
+            return value;
+        }
+
+        //等待超时且没有可返回的旧值时，直接查询数据库
+        return singleFlightLoader.load(key, cacheLoader, menuCacheProperties.getDetailLoadTimeoutMillis(), loader);
+    }
+
+    /**
+     * 查询数据库并写入缓存，多个节点之间通过分布式锁保证只有一个节点查询数据库
+     */
+    private <T> T loadAndCache(String key, byte[] keyBytes, String lockKey, Supplier<T> loader,
+                               Function<byte[], T> decoder, BiFunction<T, Long, byte[]> encoder) {
+        RLock lock = redissonClient.getLock(lockKey);
+        try {
+            if (!lock.tryLock(0, LOCK_LEASE_MILLIS, TimeUnit.MILLISECONDS)) {
+                //其他节点正在加载，等待其写入缓存，超时后直接查询数据库
+                long deadline = System.currentTimeMillis() + menuCacheProperties.getDetailLoadTimeoutMillis();
+                while (System.currentTimeMillis() < deadline) {
+                    Thread.sleep(LOCK_RETRY_INTERVAL);
+                    byte[] cacheValue = readFresh(keyBytes);
+                    if (cacheValue != null) {
+                        return MenuAggregateCodec.isNull(cacheValue) ? null : decoder.apply(cacheValue);
+                    }
+                }
+                log.info("等待其他节点加载超时：{}", key);
+                return loader.get();
+            }
+
+            //获取锁期间可能已被其他节点写入缓存
+            byte[] cacheValue = readFresh(keyBytes);
+            if (cacheValue != null) {
+                return MenuAggregateCodec.isNull(cacheValue) ? null : decoder.apply(cacheValue);
+            }
+            T value = loader.get();
+            if (value == null) {
+                //缓存空对象，短TTL
+                write(keyBytes, MenuAggregateCodec.NULL_VALUE, NULL_CACHE_TTL);
+                log.info("缓存空对象：{}", key);
+            } else {
+                //逻辑过期后还保留一段时间，供读取旧值
+                long ttl = getRandomTtl();
+                long expireAt = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(ttl);
+                write(keyBytes, encoder.apply(value, expireAt), ttl + menuCacheProperties.getDetailStaleSeconds());
+            }
+            return value;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("获取锁失败", e);
+        } finally {
+            if (lock.isHeldByCurrentThread()) {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * 读取未逻辑过期的缓存
+     *
+     * @param keyBytes
+     * @return
+     */
+    private byte[] readFresh(byte[] keyBytes) {
+        byte[] value = read(keyBytes);
+        if (value == null || MenuAggregateCodec.isNull(value)
+                || MenuAggregateCodec.expireAt(value) >= System.currentTimeMillis()) {
+            return value;
+        }
+        return null;
+    }
+
+    /**
+     * 读取缓存，编码格式已变化的旧缓存按未命中处理
+     *
+     * @param keyBytes
+     * @return
+     */
+    private byte[] read(byte[] keyBytes) {
+        byte[] value = stringRedisTemplate.execute((RedisCallback<byte[]>) connection -> connection.get(keyBytes));
+        return value == null || !MenuAggregateCodec.isSupported(value) ? null : value;
+    }
+
+    private void write(byte[] keyBytes, byte[] value, long ttlSeconds) {
+        stringRedisTemplate.execute((RedisCallback<Boolean>) connection -> connection.set(keyBytes, value,
+                Expiration.seconds(ttlSeconds), RedisStringCommands.SetOption.upsert()));
+    }
+
+    private void evict(String keyPrefix, Collection<Long> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return;
+        }
+        byte[][] keys = new byte[ids.size()][];
+        int i = 0;
+        for (Long id : ids) {
+            keys[i++] = (keyPrefix + id).getBytes(StandardCharsets.UTF_8);
+        }
+        //事务提交前删除，其他线程仍可能读到旧数据并重新写入缓存
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    delete(keys);
+                }
+            });
+        } else {
+            delete(keys);
+        }
+    }
+
+    private void delete(byte[][] keys) {
+        stringRedisTemplate.execute((RedisCallback<Long>) connection -> connection.del(keys));
+    }
+}
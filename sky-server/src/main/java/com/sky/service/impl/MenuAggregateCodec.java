@@ -0,0 +1,342 @@
+package com.sky.service.impl;
+
+import com.sky.entity.DishFlavor;
+import com.sky.entity.SetmealDish;
+import com.sky.vo.DishVO;
+import com.sky.vo.SetmealVO;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 菜品、套餐详情的二进制编码
+ * 按字段顺序依次写入，每个字段前1个字节标记是否为null，体积约为JSON的一半，且解码时不需要反射。
+ * 第1个字节为格式版本，字段变化时修改版本号，旧格式的缓存按未命中处理；其后8个字节为逻辑过期时间
+ */
+final class MenuAggregateCodec {
+
+    //格式版本
+    private static final byte VERSION = 2;
+
+    //缓存的空对象，用于防止缓存穿透
+    static final byte[] NULL_VALUE = new byte[]{0};
+
+    private MenuAggregateCodec() {
+    }
+
+    static byte[] encodeDish(DishVO dishVO, long expireAt) {
+        if (dishVO == null) {
+            return NULL_VALUE;
+        }
+        Writer writer = new Writer(expireAt);
+        writer.writeLong(dishVO.getId());
+        writer.writeString(dishVO.getName());
+        writer.writeLong(dishVO.getCategoryId());
+        writer.writeDecimal(dishVO.getPrice());
+        writer.writeString(dishVO.getImage());
+        writer.writeString(dishVO.getDescription());
+        writer.writeInt(dishVO.getStatus());
+        writer.writeDateTime(dishVO.getUpdateTime());
+        writer.writeString(dishVO.getCategoryName());
+        List<DishFlavor> flavors = dishVO.getFlavors();
+        writer.writeSize(flavors);
+        if (flavors != null) {
+            for (DishFlavor flavor : flavors) {
+                writer.writeLong(flavor.getId());
+                writer.writeLong(flavor.getDishId());
+                writer.writeString(flavor.getName());
+                writer.writeString(flavor.getValue());
+            }
+        }
+        return writer.toByteArray();
+    }
+
+    static DishVO decodeDish(byte[] bytes) {
+        Reader reader = new Reader(bytes);
+        DishVO dishVO = new DishVO();
+        dishVO.setId(reader.readLong());
+        dishVO.setName(reader.readString());
+        dishVO.setCategoryId(reader.readLong());
+        dishVO.setPrice(reader.readDecimal());
+        dishVO.setImage(reader.readString());
+        dishVO.setDescription(reader.readString());
+        dishVO.setStatus(reader.readInt());
+        dishVO.setUpdateTime(reader.readDateTime());
+        dishVO.setCategoryName(reader.readString());
+        int size = reader.readSize();
+        //编码时列表为null，解码后也为null
+        List<DishFlavor> flavors = size < 0 ? null : new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            DishFlavor flavor = new DishFlavor();
+            flavor.setId(reader.readLong());
+            flavor.setDishId(reader.readLong());
+            flavor.setName(reader.readString());
+            flavor.setValue(reader.readString());
+            flavors.add(flavor);
+        }
+        dishVO.setFlavors(flavors);
+        return dishVO;
+    }
+
+    static byte[] encodeSetmeal(SetmealVO setmealVO, long expireAt) {
+        if (setmealVO == null) {
+            return NULL_VALUE;
+        }
+        Writer writer = new Writer(expireAt);
+        writer.writeLong(setmealVO.getId());
+        writer.writeLong(setmealVO.getCategoryId());
+        writer.writeString(setmealVO.getName());
+        writer.writeDecimal(setmealVO.getPrice());
+        writer.writeInt(setmealVO.getStatus());
+        writer.writeString(setmealVO.getDescription());
+        writer.writeString(setmealVO.getImage());
+        writer.writeDateTime(setmealVO.getUpdateTime());
+        writer.writeString(setmealVO.getCategoryName());
+        List<SetmealDish> setmealDishes = setmealVO.getSetmealDishes();
+        writer.writeSize(setmealDishes);
+        if (setmealDishes != null) {
+            for (SetmealDish setmealDish : setmealDishes) {
+                writer.writeLong(setmealDish.getId());
+                writer.writeLong(setmealDish.getSetmealId());
+                writer.writeLong(setmealDish.getDishId());
+                writer.writeString(setmealDish.getName());
+                writer.writeDecimal(setmealDish.getPrice());
+                writer.writeInt(setmealDish.getCopies());
+            }
+        }
+        return writer.toByteArray();
+    }
+
+    static SetmealVO decodeSetmeal(byte[] bytes) {
+        Reader reader = new Reader(bytes);
+        SetmealVO setmealVO = new SetmealVO();
+        setmealVO.setId(reader.readLong());
+        setmealVO.setCategoryId(reader.readLong());
+        setmealVO.setName(reader.readString());
+        setmealVO.setPrice(reader.readDecimal());
+        setmealVO.setStatus(reader.readInt());
+        setmealVO.setDescription(reader.readString());
+        setmealVO.setImage(reader.readString());
+        setmealVO.setUpdateTime(reader.readDateTime());
+        setmealVO.setCategoryName(reader.readString());
+        int size = reader.readSize();
+        //编码时列表为null，解码后也为null
+        List<SetmealDish> setmealDishes = size < 0 ? null : new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            SetmealDish setmealDish = new SetmealDish();
+            setmealDish.setId(reader.readLong());
+            setmealDish.setSetmealId(reader.readLong());
+            setmealDish.setDishId(reader.readLong());
+            setmealDish.setName(reader.readString());
+            setmealDish.setPrice(reader.readDecimal());
+            setmealDish.setCopies(reader.readInt());
+            setmealDishes.add(setmealDish);
+        }
+        setmealVO.setSetmealDishes(setmealDishes);
+        return setmealVO;
+    }
+
+    /**
+     * 是否为缓存的空对象
+     *
+     * @param bytes
+     * @return
+     */
+    static boolean isNull(byte[] bytes) {
+        return bytes.length == 1 && bytes[0] == 0;
+    }
+
+    /**
+     * 逻辑过期时间，单位 毫秒
+     *
+     * @param bytes
+     * @return
+     */
+    static long expireAt(byte[] bytes) {
+        long expireAt = 0;
+        for (int i = 1; i <= Long.BYTES; i++) {
+            expireAt = (expireAt << 8) | (bytes[i] & 0xFF);
+        }
+        return expireAt;
+    }
+
+    /**
+     * 是否为当前版本的编码格式
+     *
+     * @param bytes
+     * @return
+     */
+    static boolean isSupported(byte[] bytes) {
+        return isNull(bytes) || (bytes.length > Long.BYTES && bytes[0] == VERSION);
+    }
+
+    private static final class Writer {
+
+        private final ByteArrayOutputStream buffer = new ByteArrayOutputStream(256);
+
+        private final DataOutputStream out = new DataOutputStream(buffer);
+
+        Writer(long expireAt) {
+            buffer.write(VERSION);
+            try {
+                out.writeLong(expireAt);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        void writeLong(Long value) {
+            try {
+                if (present(value)) {
+                    out.writeLong(value);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        void writeInt(Integer value) {
+            try {
+                if (present(value)) {
+                    out.writeInt(value);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        void writeString(String value) {
+            try {
+                if (present(value)) {
+                    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                    out.writeInt(bytes.length);
+                    out.write(bytes);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        void writeDecimal(BigDecimal value) {
+            try {
+                if (present(value)) {
+                    byte[] unscaled = value.unscaledValue().toByteArray();
+                    out.writeInt(value.scale());
+                    out.writeByte(unscaled.length);
+                    out.write(unscaled);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        void writeDateTime(LocalDateTime value) {
+            try {
+                if (present(value)) {
+                    out.writeLong(value.toEpochSecond(ZoneOffset.UTC));
+                    out.writeInt(value.getNano());
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        void writeSize(List<?> list) {
+            try {
+                out.writeInt(list == null ? -1 : list.size());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private boolean present(Object value) throws IOException {
+            out.writeBoolean(value != null);
+            return value != null;
+        }
+
+        byte[] toByteArray() {
+            return buffer.toByteArray();
+        }
+    }
+
+    private static final class Reader {
+
+        private final DataInputStream in;
+
+        Reader(byte[] bytes) {
+            in = new DataInputStream(new ByteArrayInputStream(bytes, 1 + Long.BYTES, bytes.length - 1 - Long.BYTES));
+        }
+
+        Long readLong() {
+            try {
+                return in.readBoolean() ? in.readLong() : null;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        Integer readInt() {
+            try {
+                return in.readBoolean() ? in.readInt() : null;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        String readString() {
+            try {
+                if (!in.readBoolean()) {
+                    return null;
+                }
+                byte[] bytes = new byte[in.readInt()];
+                in.readFully(bytes);
+                return new String(bytes, StandardCharsets.UTF_8);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        BigDecimal readDecimal() {
+            try {
+                if (!in.readBoolean()) {
+                    return null;
+                }
+                int scale = in.readInt();
+                byte[] unscaled = new byte[in.readUnsignedByte()];
+                in.readFully(unscaled);
+                return new BigDecimal(new BigInteger(unscaled), scale);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        LocalDateTime readDateTime() {
+            try {
+                return in.readBoolean()
+                        ? LocalDateTime.ofEpochSecond(in.readLong(), in.readInt(), ZoneOffset.UTC)
+                        : null;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        int readSize() {
+            try {
+                return in.readInt();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,402 @@
+package com.sky.service.impl;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.sky.entity.Category;
+import com.sky.entity.Setmeal;
+import com.sky.properties.MenuCacheProperties;
+import com.sky.service.MenuCacheService;
+import com.sky.service.MenuResponseCache;
+import com.sky.service.MenuSnapshotService;
+import com.sky.utils.JacksonUtil;
+import com.sky.vo.DishVO;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * 菜品、套餐、分类列表的两级缓存
+ * 一级为本地Caffeine缓存，保存已反序列化的不可变列表；二级为Redis，按分类缓存在 dish_{categoryId}、setmeal_{categoryId}，
+ * 分类列表按类型缓存在 category_{type}，
+ * 写入时同时登记到标签集合，清理全部缓存时只删除标签中登记的key，不使用KEYS/SCAN遍历整个Redis。
+ * 管理端修改菜品、套餐、分类后清理Redis缓存和本节点的本地缓存、菜单接口的响应缓存，并重新构建菜单快照，再通过Redis发布订阅通知其他节点
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class MenuCacheServiceImpl implements MenuCacheService, MessageListener {
+
+    private static final String DISH = "dish";
+    private static final String SETMEAL = "setmeal";
+    private static final String CATEGORY = "category";
+    private static final String ALL = "*";
+    //查询所有类型的分类列表时使用的缓存key
+    private static final long ALL_TYPES = 0L;
+
+    //失效广播频道，消息格式为 节点id:类型:分类id，分类id为*时表示该类型的全部缓存
+    private static final String INVALIDATE_CHANNEL = "menu:cache:invalidate";
+
+    //写入缓存并登记到标签，标签的过期时间不短于其中任何一个key
+    private static final RedisScript<Long> PUT_SCRIPT = new DefaultRedisScript<>(
+            "redis.call('set', KEYS[1], ARGV[1], 'EX', ARGV[2]) "
+                    + "redis.call('sadd', KEYS[2], KEYS[1]) "
+                    + "redis.call('expire', KEYS[2], ARGV[3]) "
+                    + "return 1",
+            Long.class);
+
+    //删除标签下登记的所有key和标签本身
+    private static final RedisScript<Long> EVICT_TAG_SCRIPT = new DefaultRedisScript<>(
+            "local keys = redis.call('smembers', KEYS[1]) "
+                    + "for i = 1, #keys, 500 do "
+                    + "redis.call('del', unpack(keys, i, math.min(i + 499, #keys))) "
+                    + "end "
+                    + "redis.call('del', KEYS[1]) "
+                    + "return #keys",
+            Long.class);
+
+    private final StringRedisTemplate stringRedisTemplate;
+
+    private final JacksonUtil jacksonUtil;
+
+    private final MenuCacheProperties menuCacheProperties;
+
+    private final MeterRegistry meterRegistry;
+
+    private final RedisMessageListenerContainer redisMessageListenerContainer;
+
+    private final MenuResponseCache menuResponseCache;
+
+    private final MenuSnapshotService menuSnapshotService;
+
+    //区分自己发出的失效广播，发出前已清理过本地缓存
+    private final String nodeId = UUID.randomUUID().toString();
+
+    private TwoTierCache<DishVO> dishListCache;
+
+    private TwoTierCache<Setmeal> setmealListCache;
+
+    private TwoTierCache<Category> categoryListCache;
+
+    @PostConstruct
+    public void init() {
+        dishListCache = new TwoTierCache<>(DISH, new TypeReference<List<DishVO>>() {});
+        setmealListCache = new TwoTierCache<>(SETMEAL, new TypeReference<List<Setmeal>>() {});
+        categoryListCache = new TwoTierCache<>(CATEGORY, new TypeReference<List<Category>>() {});
+        redisMessageListenerContainer.addMessageListener(this, new ChannelTopic(INVALIDATE_CHANNEL));
+    }
+
+    /**
+     * 查询分类下起售中的菜品列表，缓存中不存在时通过loader查询并写入缓存
+     *
+     * @param categoryId 为空时返回空列表
+     * @param loader
+     * @return 不可修改的列表
+     */
+    @Override
+    public List<DishVO> getDishList(Long categoryId, Supplier<List<DishVO>> loader) {
+        //未传分类id时没有对应的缓存，本地缓存也不支持null作为key
+        if (categoryId == null) {
+            return Collections.emptyList();
+        }
+        return dishListCache.get(categoryId, loader);
+    }
+
+    /**
+     * 查询分类下起售中的套餐列表，缓存中不存在时通过loader查询并写入缓存
+     *
+     * @param categoryId 为空时返回空列表
+     * @param loader
+     * @return 不可修改的列表
+     */
+    @Override
+    public List<Setmeal> getSetmealList(Long categoryId, Supplier<List<Setmeal>> loader) {
+        //未传分类id时没有对应的缓存，本地缓存也不支持null作为key
+        if (categoryId == null) {
+            return Collections.emptyList();
+        }
+        return setmealListCache.get(categoryId, loader);
+    }
+
+    /**
+     * 查询启用的分类列表，缓存中不存在时通过loader查询并写入缓存
+     *
+     * @param type 分类类型，为空时查询所有类型
+     * @param loader
+     * @return 不可修改的列表
+     */
+    @Override
+    public List<Category> getCategoryList(Integer type, Supplier<List<Category>> loader) {
+        return categoryListCache.get(type == null ? ALL_TYPES : type.longValue(), loader);
+    }
+
+    /**
+     * 预热所有分类的菜品列表缓存，预热期间缓存被清理时放弃本次预热
+     *
+     * @param loader 一次查询出所有分类的菜品列表
+     * @return 写入缓存的分类数
+     */
+    @Override
+    public int warmDishLists(Supplier<Map<Long, List<DishVO>>> loader) {
+        return dishListCache.warm(loader);
+    }
+
+    /**
+     * 清理分类下的菜品列表缓存
+     *
+     * @param categoryId
+     */
+    @Override
+    public void evictDishList(Long categoryId) {
+        dishListCache.evict(categoryId);
+        publish(DISH, String.valueOf(categoryId));
+    }
+
+    /**
+     * 清理所有分类的菜品列表缓存
+     */
+    @Override
+    public void evictAllDishLists() {
+        dishListCache.evictAll();
+        publish(DISH, ALL);
+    }
+
+    /**
+     * 清理分类下的套餐列表缓存
+     *
+     * @param categoryId
+     */
+    @Override
+    public void evictSetmealList(Long categoryId) {
+        setmealListCache.evict(categoryId);
+        publish(SETMEAL, String.valueOf(categoryId));
+    }
+
+    /**
+     * 清理所有分类的套餐列表缓存
+     */
+    @Override
+    public void evictAllSetmealLists() {
+        setmealListCache.evictAll();
+        publish(SETMEAL, ALL);
+    }
+
+    /**
+     * 分类修改后清理分类列表和该分类下的菜品、套餐列表缓存
+     *
+     * @param categoryId
+     */
+    @Override
+    public void evictCategory(Long categoryId) {
+        evictCategoryList();
+        evictDishList(categoryId);
+        evictSetmealList(categoryId);
+    }
+
+    /**
+     * 清理所有类型的分类列表缓存
+     */
+    @Override
+    public void evictCategoryList() {
+        categoryListCache.evictAll();
+        publish(CATEGORY, ALL);
+    }
+
+    /**
+     * 收到其他节点的失效广播，清理本地缓存。
+     * 忽略自己发出的广播，否则预热期间收到自己清理缓存的广播会被当作数据变化而放弃预热
+     *
+     * @param message
+     * @param pattern
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String[] parts = new String(message.getBody(), StandardCharsets.UTF_8).split(":", 3);
+        if (parts.length < 3 || nodeId.equals(parts[0])) {
+            return;
+        }
+        String type = parts[1];
+        String categoryId = parts[2];
+        TwoTierCache<?> cache = DISH.equals(type) ? dishListCache
+                : SETMEAL.equals(type) ? setmealListCache
+                : CATEGORY.equals(type) ? categoryListCache : null;
+        if (cache == null) {
+            return;
+        }
+        if (ALL.equals(categoryId)) {
+            cache.invalidateLocalAll();
+        } else {
+            cache.invalidateLocal(Long.valueOf(categoryId));
+        }
+    }
+
+    private void publish(String type, String categoryId) {
+        try {
+            stringRedisTemplate.convertAndSend(INVALIDATE_CHANNEL, nodeId + ":" + type + ":" + categoryId);
+        } catch (Exception e) {
+            //广播失败时其他节点的本地缓存在过期后失效
+            log.error("发送菜单缓存失效广播失败：{}:{}", type, categoryId, e);
+        }
+    }
+
+    /**
+     * 按分类缓存列表的两级缓存，分类列表按类型缓存
+     *
+     * @param <V>
+     */
+    private class TwoTierCache<V> {
+
+        private final String name;
+
+        private final String keyPrefix;
+
+        private final String tag;
+
+        private final TypeReference<List<V>> typeReference;
+
+        private final Cache<Long, List<V>> localCache;
+
+        //本地缓存失效次数，读取Redis期间发生过失效时不写入本地缓存，避免写入旧数据
+        private final AtomicLong generation = new AtomicLong();
+
+        private final Counter redisHit;
+
+        private final Counter redisMiss;
+
+        private final Counter redisEviction;
+
+        TwoTierCache(String name, TypeReference<List<V>> typeReference) {
+            this.name = name;
+            this.keyPrefix = name + "_";
+            this.tag = name + "_tag";
+            this.typeReference = typeReference;
+            this.localCache = Caffeine.newBuilder()
+                    .maximumSize(menuCacheProperties.getLocalMaxSize())
+                    .expireAfterWrite(menuCacheProperties.getLocalTtlSeconds(), TimeUnit.SECONDS)
+                    .recordStats()
+                    .build();
+
+            //cache.gets、cache.evictions等指标，按tier区分本地缓存和Redis缓存
+            String cacheName = name + "List";
+            CaffeineCacheMetrics.monitor(meterRegistry, localCache, cacheName, Tags.of("tier", "local"));
+            this.redisHit = Counter.builder("cache.gets")
+                    .tags("cache", cacheName, "tier", "redis", "result", "hit")
+                    .register(meterRegistry);
+            this.redisMiss = Counter.builder("cache.gets")
+                    .tags("cache", cacheName, "tier", "redis", "result", "miss")
+                    .register(meterRegistry);
+            this.redisEviction = Counter.builder("cache.evictions")
+                    .tags("cache", cacheName, "tier", "redis")
+                    .register(meterRegistry);
+        }
+
+        List<V> get(Long categoryId, Supplier<List<V>> loader) {
+            List<V> list = localCache.getIfPresent(categoryId);
+            if (list != null) {
+                return list;
+            }
+
+            long currentGeneration = generation.get();
+            String key = keyPrefix + categoryId;
+            list = jacksonUtil.toGenericObj(stringRedisTemplate.opsForValue().get(key), typeReference);
+            if (list != null) {
+                redisHit.increment();
+            } else {
+                redisMiss.increment();
+                list = loader.get();
+                if (list == null) {
+                    list = new ArrayList<>();
+                }
+                putRedis(key, list);
+            }
+
+            list = Collections.unmodifiableList(list);
+            if (generation.get() == currentGeneration) {
+                localCache.put(categoryId, list);
+            }
+            return list;
+        }
+
+        int warm(Supplier<Map<Long, List<V>>> loader) {
+            long currentGeneration = generation.get();
+            Map<Long, List<V>> lists = loader.get();
+            for (Map.Entry<Long, List<V>> entry : lists.entrySet()) {
+                if (generation.get() != currentGeneration) {
+                    log.info("{}缓存预热期间数据发生变化，放弃预热", keyPrefix);
+                    return 0;
+                }
+                putRedis(keyPrefix + entry.getKey(), entry.getValue());
+                localCache.put(entry.getKey(), Collections.unmodifiableList(entry.getValue()));
+            }
+            return lists.size();
+        }
+
+        void evict(Long categoryId) {
+            String key = keyPrefix + categoryId;
+            if (Boolean.TRUE.equals(stringRedisTemplate.delete(key))) {
+                redisEviction.increment();
+            }
+            stringRedisTemplate.opsForSet().remove(tag, key);
+            invalidateLocal(categoryId);
+        }
+
+        void evictAll() {
+            Long count = stringRedisTemplate.execute(EVICT_TAG_SCRIPT, Collections.singletonList(tag));
+            log.info("清理{}缓存：{}个", keyPrefix, count);
+            if (count != null) {
+                redisEviction.increment(count);
+            }
+            invalidateLocalAll();
+        }
+
+        private void putRedis(String key, List<V> list) {
+            MenuCacheProperties properties = menuCacheProperties;
+            long ttl = properties.getRedisTtlSeconds()
+                    + ThreadLocalRandom.current().nextLong(properties.getRedisTtlRandomSeconds() + 1);
+            stringRedisTemplate.execute(PUT_SCRIPT, Arrays.asList(key, tag), jacksonUtil.toJson(list),
+                    String.valueOf(ttl),
+                    String.valueOf(properties.getRedisTtlSeconds() + properties.getRedisTtlRandomSeconds()));
+        }
+
+        //同时清理响应缓存，菜品、套餐的变化都会影响套餐包含的菜品列表
+        void invalidateLocal(Long categoryId) {
+            generation.incrementAndGet();
+            localCache.invalidate(categoryId);
+            menuResponseCache.invalidate(name, categoryId);
+            menuResponseCache.invalidateGroup(MenuResponseCache.SETMEAL_DISH);
+            menuSnapshotService.markDirty();
+        }
+
+        void invalidateLocalAll() {
+            generation.incrementAndGet();
+            localCache.invalidateAll();
+            menuResponseCache.invalidateGroup(name);
+            menuResponseCache.invalidateGroup(MenuResponseCache.SETMEAL_DISH);
+            menuSnapshotService.markDirty();
+        }
+    }
+}
@@ -0,0 +1,226 @@
+package com.sky.service.impl;
+
+import com.sky.mapper.DishMapper;
+import com.sky.mapper.SetmealMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * 菜品、套餐数量统计
+ * 按 分类id:状态 把数量保存在Redis的hash中，新增、修改、删除、起售停售时在事务提交后增量更新，
+ * 删除分类前的检查和工作台的菜品、套餐总览不再查询数据库。启动时和定时从数据库重新统计，修正可能的偏差
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class MenuCountService {
+
+    private static final String DISH_KEY = "menu:count:dish";
+    private static final String SETMEAL_KEY = "menu:count:setmeal";
+
+    //hash中的占位字段，没有任何数据时也能区分已统计和未统计
+    private static final String BUILT_FIELD = "_";
+
+    //hash存在时才增量更新，不存在时等待重新统计
+    private static final RedisScript<Long> INCREMENT_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('exists', KEYS[1]) == 0 then return 0 end "
+                    + "for i = 1, #ARGV, 2 do "
+                    + "redis.call('hincrby', KEYS[1], ARGV[i], ARGV[i + 1]) "
+                    + "end "
+                    + "return 1",
+            Long.class);
+
+    //用数据库的统计结果整体替换hash
+    private static final RedisScript<Long> REPLACE_SCRIPT = new DefaultRedisScript<>(
+            "redis.call('del', KEYS[1]) "
+                    + "for i = 1, #ARGV, 2 do "
+                    + "redis.call('hset', KEYS[1], ARGV[i], ARGV[i + 1]) "
+                    + "end "
+                    + "return 1",
+            Long.class);
+
+    private final StringRedisTemplate stringRedisTemplate;
+
+    private final DishMapper dishMapper;
+
+    private final SetmealMapper setmealMapper;
+
+    /**
+     * 分类下的菜品数量
+     *
+     * @param categoryId
+     * @return
+     */
+    public int countDishByCategory(Long categoryId) {
+        return sumByCategory(getCounts(DISH_KEY, dishMapper::countGroupByCategoryAndStatus), categoryId);
+    }
+
+    /**
+     * 分类下的套餐数量
+     *
+     * @param categoryId
+     * @return
+     */
+    public int countSetmealByCategory(Long categoryId) {
+        return sumByCategory(getCounts(SETMEAL_KEY, setmealMapper::countGroupByCategoryAndStatus), categoryId);
+    }
+
+    /**
+     * 按状态统计菜品数量，一次读取即可得到所有状态
+     *
+     * @return 状态 -> 数量
+     */
+    public Map<Integer, Integer> countDishGroupByStatus() {
+        return groupByStatus(getCounts(DISH_KEY, dishMapper::countGroupByCategoryAndStatus));
+    }
+
+    /**
+     * 按状态统计套餐数量，一次读取即可得到所有状态
+     *
+     * @return 状态 -> 数量
+     */
+    public Map<Integer, Integer> countSetmealGroupByStatus() {
+        return groupByStatus(getCounts(SETMEAL_KEY, setmealMapper::countGroupByCategoryAndStatus));
+    }
+
+    /**
+     * 菜品的分类或状态发生变化
+     *
+     * @param oldCategoryId 新增时为null
+     * @param oldStatus
+     * @param newCategoryId 删除时为null
+     * @param newStatus
+     */
+    public void dishChanged(Long oldCategoryId, Integer oldStatus, Long newCategoryId, Integer newStatus) {
+        increment(DISH_KEY, oldCategoryId, oldStatus, newCategoryId, newStatus);
+    }
+
+    /**
+     * 套餐的分类或状态发生变化
+     *
+     * @param oldCategoryId 新增时为null
+     * @param oldStatus
+     * @param newCategoryId 删除时为null
+     * @param newStatus
+     */
+    public void setmealChanged(Long oldCategoryId, Integer oldStatus, Long newCategoryId, Integer newStatus) {
+        increment(SETMEAL_KEY, oldCategoryId, oldStatus, newCategoryId, newStatus);
+    }
+
+    /**
+     * 从数据库重新统计
+     */
+    @Scheduled(fixedDelayString = "#{@menuCacheProperties.countReconcileMinutes * 60 * 1000}")
+    public void reconcile() {
+        rebuild(DISH_KEY, dishMapper::countGroupByCategoryAndStatus);
+        rebuild(SETMEAL_KEY, setmealMapper::countGroupByCategoryAndStatus);
+    }
+
+    private void increment(String key, Long oldCategoryId, Integer oldStatus, Long newCategoryId, Integer newStatus) {
+        Map<String, Long> deltas = new HashMap<>();
+        if (oldCategoryId != null) {
+            deltas.merge(field(oldCategoryId, oldStatus), -1L, Long::sum);
+        }
+        if (newCategoryId != null) {
+            deltas.merge(field(newCategoryId, newStatus), 1L, Long::sum);
+        }
+        deltas.values().removeIf(delta -> delta == 0);
+        if (deltas.isEmpty()) {
+            return;
+        }
+
+        List<String> args = new ArrayList<>(deltas.size() * 2);
+        for (Map.Entry<String, Long> entry : deltas.entrySet()) {
+            args.add(entry.getKey());
+            args.add(String.valueOf(entry.getValue()));
+        }
+        Runnable task = () -> stringRedisTemplate.execute(INCREMENT_SCRIPT, Collections.singletonList(key), args.toArray());
+        //事务回滚时不更新
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    task.run();
+                }
+            });
+        } else {
+            task.run();
+        }
+    }
+
+    /**
+     * 读取统计结果，Redis中不存在时从数据库统计并写入
+     *
+     * @return 分类id:状态 -> 数量
+     */
+    private Map<String, Long> getCounts(String key, Supplier<List<Map<String, Object>>> query) {
+        Map<Object, Object> entries = stringRedisTemplate.opsForHash().entries(key);
+        if (entries.isEmpty()) {
+            return rebuild(key, query);
+        }
+        Map<String, Long> counts = new HashMap<>(entries.size() * 2);
+        for (Map.Entry<Object, Object> entry : entries.entrySet()) {
+            if (!BUILT_FIELD.equals(entry.getKey())) {
+                counts.put((String) entry.getKey(), Long.valueOf((String) entry.getValue()));
+            }
+        }
+        return counts;
+    }
+
+    private Map<String, Long> rebuild(String key, Supplier<List<Map<String, Object>>> query) {
+        Map<String, Long> counts = new HashMap<>();
+        for (Map<String, Object> row : query.get()) {
+            counts.merge(field(row.get("categoryId"), row.get("status")), ((Number) row.get("count")).longValue(), Long::sum);
+        }
+
+        List<String> args = new ArrayList<>(counts.size() * 2 + 2);
+        args.add(BUILT_FIELD);
+        args.add("1");
+        for (Map.Entry<String, Long> entry : counts.entrySet()) {
+            args.add(entry.getKey());
+            args.add(String.valueOf(entry.getValue()));
+        }
+        stringRedisTemplate.execute(REPLACE_SCRIPT, Collections.singletonList(key), args.toArray());
+        log.info("重新统计{}，共{}项", key, counts.size());
+        return counts;
+    }
+
+    private int sumByCategory(Map<String, Long> counts, Long categoryId) {
+        String prefix = categoryId + ":";
+        long sum = 0;
+        for (Map.Entry<String, Long> entry : counts.entrySet()) {
+            if (entry.getKey().startsWith(prefix)) {
+                sum += entry.getValue();
+            }
+        }
+        return (int) sum;
+    }
+
+    private Map<Integer, Integer> groupByStatus(Map<String, Long> counts) {
+        Map<Integer, Integer> result = new HashMap<>();
+        for (Map.Entry<String, Long> entry : counts.entrySet()) {
+            String field = entry.getKey();
+            Integer status = Integer.valueOf(field.substring(field.lastIndexOf(':') + 1));
+            result.merge(status, entry.getValue().intValue(), Integer::sum);
+        }
+        return result;
+    }
+
+    private String field(Object categoryId, Object status) {
+        return categoryId + ":" + status;
+    }
+}
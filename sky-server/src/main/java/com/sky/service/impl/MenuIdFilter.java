@@ -0,0 +1,187 @@
+package com.sky.service.impl;
+
+import com.sky.mapper.DishMapper;
+import com.sky.mapper.SetmealMapper;
+import com.sky.properties.MenuCacheProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RBloomFilter;
+import org.redisson.api.RedissonClient;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * 菜品、套餐id布隆过滤器，防止用不存在的id查询时穿透到Redis和数据库
+ * 过滤器保存在Redis中由所有节点共享，启动时从数据库全量构建，新增菜品、套餐时加入。
+ * 布隆过滤器不支持删除，已删除的id仍会通过过滤器，由空值缓存拦截。
+ * 实际误判率 = false_positive / (false_positive + rejected)，可通过 menu.id.filter 指标观察
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class MenuIdFilter {
+
+    private static final String DISH = "dish";
+    private static final String SETMEAL = "setmeal";
+
+    private final RedissonClient redissonClient;
+
+    private final StringRedisTemplate stringRedisTemplate;
+
+    private final DishMapper dishMapper;
+
+    private final SetmealMapper setmealMapper;
+
+    private final MenuCacheProperties menuCacheProperties;
+
+    private final MeterRegistry meterRegistry;
+
+    private IdFilter dishFilter;
+
+    private IdFilter setmealFilter;
+
+    @PostConstruct
+    public void init() {
+        dishFilter = new IdFilter(DISH, dishMapper::getAllIds);
+        setmealFilter = new IdFilter(SETMEAL, setmealMapper::getAllIds);
+        dishFilter.init();
+        setmealFilter.init();
+    }
+
+    /**
+     * 菜品id是否可能存在，返回false时菜品一定不存在
+     *
+     * @param id
+     * @return
+     */
+    public boolean mightContainDish(Long id) {
+        return dishFilter.mightContain(id);
+    }
+
+    /**
+     * 套餐id是否可能存在，返回false时套餐一定不存在
+     *
+     * @param id
+     * @return
+     */
+    public boolean mightContainSetmeal(Long id) {
+        return setmealFilter.mightContain(id);
+    }
+
+    public void addDish(Long id) {
+        dishFilter.add(id);
+    }
+
+    public void addSetmeal(Long id) {
+        setmealFilter.add(id);
+    }
+
+    /**
+     * 通过过滤器的菜品id在数据库中不存在
+     */
+    public void recordDishFalsePositive() {
+        dishFilter.falsePositive.increment();
+    }
+
+    /**
+     * 通过过滤器的套餐id在数据库中不存在
+     */
+    public void recordSetmealFalsePositive() {
+        setmealFilter.falsePositive.increment();
+    }
+
+    private final class IdFilter {
+
+        private final String type;
+
+        private final Supplier<List<Long>> allIds;
+
+        private final RBloomFilter<Long> bloomFilter;
+
+        //过滤器构建完成的标记，构建中途失败时下次启动重新构建
+        private final String readyKey;
+
+        //过滤器未构建完成时不拦截任何id
+        private volatile boolean ready;
+
+        private final Counter rejected;
+
+        private final Counter passed;
+
+        private final Counter falsePositive;
+
+        IdFilter(String type, Supplier<List<Long>> allIds) {
+            this.type = type;
+            this.allIds = allIds;
+            this.bloomFilter = redissonClient.getBloomFilter("bloom:" + type);
+            this.readyKey = "bloom:" + type + ":ready";
+            this.rejected = counter("rejected");
+            this.passed = counter("passed");
+            this.falsePositive = counter("false_positive");
+        }
+
+        private Counter counter(String result) {
+            return Counter.builder("menu.id.filter")
+                    .description("菜品、套餐id布隆过滤器的检查结果")
+                    .tag("type", type)
+                    .tag("result", result)
+                    .register(meterRegistry);
+        }
+
+        void init() {
+            try {
+                bloomFilter.tryInit(menuCacheProperties.getIdFilterExpectedInsertions(),
+                        menuCacheProperties.getIdFilterFalseProbability());
+                if (!Boolean.TRUE.equals(stringRedisTemplate.hasKey(readyKey))) {
+                    List<Long> ids = allIds.get();
+                    for (Long id : ids) {
+                        bloomFilter.add(id);
+                    }
+                    stringRedisTemplate.opsForValue().set(readyKey, "1");
+                    log.info("{}id布隆过滤器构建完成，数量：{}", type, ids.size());
+                }
+                ready = true;
+            } catch (Exception e) {
+                //构建失败时不拦截，仍由空值缓存防止穿透
+                log.error("{}id布隆过滤器构建失败", type, e);
+            }
+        }
+
+        boolean mightContain(Long id) {
+            if (!ready || id == null) {
+                return true;
+            }
+            try {
+                if (bloomFilter.contains(id)) {
+                    passed.increment();
+                    return true;
+                }
+                rejected.increment();
+                return false;
+            } catch (Exception e) {
+                log.warn("{}id布隆过滤器查询失败：{}", type, id, e);
+                return true;
+            }
+        }
+
+        void add(Long id) {
+            if (ready) {
+                //加入失败时抛出异常回滚新增，否则新增的数据会被过滤器拦截
+                bloomFilter.add(id);
+                return;
+            }
+            try {
+                //其他节点可能正在构建，同样需要加入
+                bloomFilter.add(id);
+            } catch (Exception e) {
+                log.warn("{}id加入布隆过滤器失败：{}", type, id, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.sky.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.sky.json.JacksonObjectMapper;
+import com.sky.properties.MenuCacheProperties;
+import com.sky.result.Result;
+import com.sky.service.MenuResponseCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.util.DigestUtils;
+
+import javax.annotation.PostConstruct;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * 用户端菜单接口的响应缓存
+ * 缓存序列化后的Result响应体字节和内容摘要，命中时直接写入响应输出流，不再经过对象反序列化和消息转换器序列化；
+ * 请求头If-None-Match与摘要一致时返回304。缓存由MenuCacheService在菜单数据变化时清理
+ */
+@Service
+@RequiredArgsConstructor
+public class MenuResponseCacheImpl implements MenuResponseCache {
+
+    //与消息转换器使用相同的对象映射器，保证响应内容一致
+    private final ObjectMapper objectMapper = new JacksonObjectMapper();
+
+    private final MenuCacheProperties menuCacheProperties;
+
+    private final MeterRegistry meterRegistry;
+
+    //清理次数，生成响应期间发生过清理时不写入缓存，避免写入旧数据
+    private final AtomicLong generation = new AtomicLong();
+
+    private Cache<String, CachedBody> cache;
+
+    @PostConstruct
+    public void init() {
+        cache = Caffeine.newBuilder()
+                .maximumSize(menuCacheProperties.getLocalMaxSize())
+                .expireAfterWrite(menuCacheProperties.getLocalTtlSeconds(), TimeUnit.SECONDS)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "menuResponse", Tags.of("tier", "local"));
+    }
+
+    /**
+     * 输出菜单接口的响应，缓存中不存在时通过loader查询并写入缓存
+     *
+     * @param group    缓存分组
+     * @param id       分组内的id，如分类id、套餐id
+     * @param request
+     * @param response
+     * @param loader
+     */
+    @Override
+    public void write(String group, Object id, HttpServletRequest request, HttpServletResponse response,
+                      Supplier<Result<?>> loader) throws IOException {
+        String key = group + ":" + id;
+        CachedBody body = cache.getIfPresent(key);
+        if (body == null) {
+            long currentGeneration = generation.get();
+            byte[] bytes = objectMapper.writeValueAsBytes(loader.get());
+            body = new CachedBody(bytes, "\"" + DigestUtils.md5DigestAsHex(bytes) + "\"");
+            if (generation.get() == currentGeneration) {
+                cache.put(key, body);
+            }
+        }
+
+        //客户端每次都需要携带If-None-Match校验，内容未变化时返回304
+        response.setHeader(HttpHeaders.ETAG, body.etag);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "no-cache");
+        String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+        if (ifNoneMatch != null && ifNoneMatch.contains(body.etag)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE + ";charset=UTF-8");
+        response.setContentLength(body.bytes.length);
+        response.getOutputStream().write(body.bytes);
+    }
+
+    /**
+     * 清理分组内指定id的响应缓存
+     *
+     * @param group
+     * @param id
+     */
+    @Override
+    public void invalidate(String group, Object id) {
+        generation.incrementAndGet();
+        cache.invalidate(group + ":" + id);
+    }
+
+    /**
+     * 清理分组内的全部响应缓存
+     *
+     * @param group
+     */
+    @Override
+    public void invalidateGroup(String group) {
+        generation.incrementAndGet();
+        String prefix = group + ":";
+        cache.asMap().keySet().removeIf(key -> key.startsWith(prefix));
+    }
+
+    private static class CachedBody {
+
+        private final byte[] bytes;
+
+        private final String etag;
+
+        CachedBody(byte[] bytes, String etag) {
+            this.bytes = bytes;
+            this.etag = etag;
+        }
+    }
+}
@@ -0,0 +1,311 @@
+package com.sky.service.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sky.constant.StatusConstant;
+import com.sky.entity.Category;
+import com.sky.entity.Dish;
+import com.sky.entity.Setmeal;
+import com.sky.entity.SetmealDish;
+import com.sky.json.JacksonObjectMapper;
+import com.sky.mapper.CategoryMapper;
+import com.sky.mapper.DishMapper;
+import com.sky.mapper.SetmealDishMapper;
+import com.sky.mapper.SetmealMapper;
+import com.sky.properties.MenuCacheProperties;
+import com.sky.service.DishService;
+import com.sky.service.MenuSnapshotService;
+import com.sky.vo.DishItemVO;
+import com.sky.vo.DishVO;
+import com.sky.vo.MenuCategoryVO;
+import com.sky.vo.MenuSetmealVO;
+import com.sky.vo.MenuSnapshotVO;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.stereotype.Service;
+import org.springframework.util.DigestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 用户端完整菜单快照
+ * 分类、菜品及口味、套餐及包含的菜品通过固定次数的批量查询一次构建为不可变快照，构建完成后原子替换；
+ * 菜单数据变化时由MenuCacheService通知，在后台线程重新构建，构建期间继续使用旧快照。
+ * 版本号由各分类的内容摘要计算，多个节点数据相同时版本号相同，客户端携带版本号时只返回变化的分类
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class MenuSnapshotServiceImpl implements MenuSnapshotService {
+
+    //保留最近若干个版本的分类摘要，用于计算增量
+    private static final int HISTORY_SIZE = 32;
+
+    private final CategoryMapper categoryMapper;
+
+    private final DishMapper dishMapper;
+
+    private final SetmealMapper setmealMapper;
+
+    private final SetmealDishMapper setmealDishMapper;
+
+    private final DishService dishService;
+
+    private final MenuCacheProperties menuCacheProperties;
+
+    private final TaskExecutor taskExecutor;
+
+    //与消息转换器使用相同的对象映射器计算分类摘要
+    private final ObjectMapper objectMapper = new JacksonObjectMapper();
+
+    private final AtomicReference<MenuSnapshot> current = new AtomicReference<>();
+
+    private final AtomicBoolean dirty = new AtomicBoolean();
+
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+
+    //版本号 -> 该版本各分类的摘要
+    private final Map<String, Map<Long, String>> history = new LinkedHashMap<String, Map<Long, String>>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Map<Long, String>> eldest) {
+            return size() > HISTORY_SIZE;
+        }
+    };
+
+    /**
+     * 查询菜单，客户端版本号可识别时返回增量
+     *
+     * @param version 客户端当前的菜单版本号，首次请求为空
+     * @return
+     */
+    @Override
+    public MenuSnapshotVO getSnapshot(String version) {
+        MenuSnapshot snapshot = currentSnapshot();
+        if (snapshot.version.equals(version)) {
+            return MenuSnapshotVO.builder()
+                    .version(snapshot.version)
+                    .full(false)
+                    .categories(Collections.emptyList())
+                    .removedCategoryIds(Collections.emptyList())
+                    .build();
+        }
+
+        Map<Long, String> oldHashes = null;
+        if (version != null) {
+            synchronized (history) {
+                oldHashes = history.get(version);
+            }
+        }
+        if (oldHashes == null) {
+            return MenuSnapshotVO.builder()
+                    .version(snapshot.version)
+                    .full(true)
+                    .categories(snapshot.categories)
+                    .removedCategoryIds(Collections.emptyList())
+                    .build();
+        }
+
+        List<MenuCategoryVO> changed = new ArrayList<>();
+        for (MenuCategoryVO category : snapshot.categories) {
+            if (!category.getHash().equals(oldHashes.get(category.getId()))) {
+                changed.add(category);
+            }
+        }
+        List<Long> removed = new ArrayList<>();
+        for (Long categoryId : oldHashes.keySet()) {
+            if (!snapshot.categoryHashes.containsKey(categoryId)) {
+                removed.add(categoryId);
+            }
+        }
+        return MenuSnapshotVO.builder()
+                .version(snapshot.version)
+                .full(false)
+                .categories(changed)
+                .removedCategoryIds(removed)
+                .build();
+    }
+
+    /**
+     * 菜单数据发生变化，在后台重新构建快照，多次变化合并为一次构建
+     */
+    @Override
+    public void markDirty() {
+        dirty.set(true);
+        if (rebuilding.compareAndSet(false, true)) {
+            try {
+                taskExecutor.execute(this::rebuildWhileDirty);
+            } catch (TaskRejectedException e) {
+                //线程池已满，本次不构建，继续使用旧快照，下次数据变化或快照过期时再次尝试
+                log.warn("构建菜单快照的任务被拒绝");
+                rebuilding.set(false);
+            }
+        }
+    }
+
+    private MenuSnapshot currentSnapshot() {
+        MenuSnapshot snapshot = current.get();
+        if (snapshot == null) {
+            synchronized (this) {
+                snapshot = current.get();
+                if (snapshot == null) {
+                    snapshot = rebuild();
+                }
+            }
+        } else if (System.currentTimeMillis() - snapshot.buildTime > menuCacheProperties.getLocalTtlSeconds() * 1000) {
+            //变化通知丢失时，快照过期后重新构建
+            markDirty();
+        }
+        return snapshot;
+    }
+
+    private void rebuildWhileDirty() {
+        do {
+            try {
+                while (dirty.getAndSet(false)) {
+                    rebuild();
+                }
+            } catch (Exception e) {
+                //继续使用旧快照，下次数据变化或快照过期时重试
+                log.error("构建菜单快照失败", e);
+            } finally {
+                rebuilding.set(false);
+            }
+        } while (dirty.get() && rebuilding.compareAndSet(false, true));
+    }
+
+    /**
+     * 批量查询菜单数据构建快照并替换当前快照
+     *
+     * @return
+     */
+    private MenuSnapshot rebuild() {
+        List<Category> categoryList = categoryMapper.list(null);
+        Map<Long, List<DishVO>> dishMap = dishService.listEnabledWithFlavorGroupByCategory();
+        Map<Long, List<MenuSetmealVO>> setmealMap = listEnabledSetmealGroupByCategory();
+
+        List<MenuCategoryVO> categories = new ArrayList<>(categoryList.size());
+        Map<Long, String> categoryHashes = new HashMap<>();
+        StringBuilder versionSource = new StringBuilder();
+        for (Category category : categoryList) {
+            MenuCategoryVO categoryVO = MenuCategoryVO.builder()
+                    .id(category.getId())
+                    .type(category.getType())
+                    .name(category.getName())
+                    .sort(category.getSort())
+                    .dishes(dishMap.getOrDefault(category.getId(), Collections.emptyList()))
+                    .setmeals(setmealMap.getOrDefault(category.getId(), Collections.emptyList()))
+                    .build();
+            String hash = hash(categoryVO);
+            categoryVO.setHash(hash);
+            categories.add(categoryVO);
+            categoryHashes.put(category.getId(), hash);
+            versionSource.append(category.getId()).append(':').append(hash).append(';');
+        }
+
+        String version = DigestUtils.md5DigestAsHex(versionSource.toString().getBytes(StandardCharsets.UTF_8));
+        MenuSnapshot snapshot = new MenuSnapshot(version, Collections.unmodifiableList(categories),
+                Collections.unmodifiableMap(categoryHashes));
+        synchronized (history) {
+            history.put(version, snapshot.categoryHashes);
+        }
+        current.set(snapshot);
+        log.info("菜单快照构建完成，版本：{}，分类数：{}", version, categories.size());
+        return snapshot;
+    }
+
+    /**
+     * 查询所有起售中的套餐及包含的菜品，按分类id分组
+     *
+     * @return
+     */
+    private Map<Long, List<MenuSetmealVO>> listEnabledSetmealGroupByCategory() {
+        Setmeal query = new Setmeal();
+        query.setStatus(StatusConstant.ENABLE);
+        List<Setmeal> setmealList = setmealMapper.list(query);
+        Map<Long, List<MenuSetmealVO>> setmealMap = new HashMap<>();
+        if (setmealList.isEmpty()) {
+            return setmealMap;
+        }
+
+        List<Long> setmealIds = new ArrayList<>(setmealList.size());
+        for (Setmeal setmeal : setmealList) {
+            setmealIds.add(setmeal.getId());
+        }
+        List<SetmealDish> setmealDishList = setmealDishMapper.getBySetmealIds(setmealIds);
+
+        //套餐包含的菜品图片、描述取自菜品表
+        Map<Long, Dish> dishById = new HashMap<>();
+        if (!setmealDishList.isEmpty()) {
+            List<Long> dishIds = new ArrayList<>(setmealDishList.size());
+            for (SetmealDish setmealDish : setmealDishList) {
+                dishIds.add(setmealDish.getDishId());
+            }
+            for (Dish dish : dishMapper.getByIds(dishIds)) {
+                dishById.put(dish.getId(), dish);
+            }
+        }
+        Map<Long, List<DishItemVO>> dishItemMap = new HashMap<>();
+        for (SetmealDish setmealDish : setmealDishList) {
+            Dish dish = dishById.get(setmealDish.getDishId());
+            DishItemVO dishItemVO = DishItemVO.builder()
+                    .name(setmealDish.getName())
+                    .copies(setmealDish.getCopies())
+                    .image(dish == null ? null : dish.getImage())
+                    .description(dish == null ? null : dish.getDescription())
+                    .build();
+            dishItemMap.computeIfAbsent(setmealDish.getSetmealId(), k -> new ArrayList<>()).add(dishItemVO);
+        }
+
+        for (Setmeal setmeal : setmealList) {
+            MenuSetmealVO setmealVO = MenuSetmealVO.builder()
+                    .id(setmeal.getId())
+                    .categoryId(setmeal.getCategoryId())
+                    .name(setmeal.getName())
+                    .price(setmeal.getPrice())
+                    .image(setmeal.getImage())
+                    .description(setmeal.getDescription())
+                    .dishes(dishItemMap.getOrDefault(setmeal.getId(), Collections.emptyList()))
+                    .build();
+            setmealMap.computeIfAbsent(setmeal.getCategoryId(), k -> new ArrayList<>()).add(setmealVO);
+        }
+        return setmealMap;
+    }
+
+    private String hash(MenuCategoryVO categoryVO) {
+        try {
+            return DigestUtils.md5DigestAsHex(objectMapper.writeValueAsBytes(categoryVO));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("计算菜单分类摘要失败", e);
+        }
+    }
+
+    /**
+     * 不可变的菜单快照
+     */
+    private static final class MenuSnapshot {
+
+        private final String version;
+
+        private final List<MenuCategoryVO> categories;
+
+        private final Map<Long, String> categoryHashes;
+
+        private final long buildTime = System.currentTimeMillis();
+
+        MenuSnapshot(String version, List<MenuCategoryVO> categories, Map<Long, String> categoryHashes) {
+            this.version = version;
+            this.categories = categories;
+            this.categoryHashes = categoryHashes;
+        }
+    }
+}
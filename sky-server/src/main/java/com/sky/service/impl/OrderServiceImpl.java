@@ -1,7 +1,6 @@
 package com.sky.service.impl;
 
 import com.alibaba.fastjson.JSON;
-import com.alibaba.fastjson.JSONArray;
 import com.alibaba.fastjson.JSONObject;
 import com.github.pagehelper.Page;
 import com.github.pagehelper.PageHelper;
@@ -14,30 +13,38 @@ import com.sky.exception.AddressBookBusinessException;
 import com.sky.exception.OrderBusinessException;
 import com.sky.exception.ShoppingCartBusinessException;
 import com.sky.mapper.*;
+import com.sky.result.CursorPageResult;
 import com.sky.result.PageResult;
 import com.sky.service.impl.async.AsyncService;
+import com.sky.service.OrderNumberGenerator;
 import com.sky.service.OrderService;
-import com.sky.utils.HttpClientUtil;
+import com.sky.service.RefundService;
 import com.sky.utils.WeChatPayUtil;
 import com.sky.vo.OrderPaymentVO;
 import com.sky.vo.OrderStatisticsVO;
 import com.sky.vo.OrderSubmitVO;
 import com.sky.vo.OrderVO;
 import com.sky.websocket.WebSocketServer;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.redisson.api.RedissonClient;
 import org.springframework.beans.BeanUtils;
-import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Base64;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.stream.Collectors;
 
 @RequiredArgsConstructor
@@ -46,11 +53,9 @@ import java.util.stream.Collectors;
 
 public class OrderServiceImpl implements OrderService {
 
-    @Value("${sky.shop.address}")
-    private String shopAddress;
+    //游标分页未指定每页记录数时的默认值
+    private static final int DEFAULT_PAGE_SIZE = 10;
 
-    @Value("${sky.baidu.ak}")
-    private String ak;
     private final OrderMapper orderMapper;
 
     private final AddressBookMapper addressBookMapper;
@@ -68,42 +73,102 @@ public class OrderServiceImpl implements OrderService {
     private final AsyncService asyncService;
 
     private final OrderLockService orderLockService;
+
+    private final DeliveryRangeService deliveryRangeService;
+
+    private final RefundService refundService;
+
+    private final OrderTimeoutService orderTimeoutService;
+
+    private final OrderNumberGenerator orderNumberGenerator;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final TaskExecutor rangeCheckExecutor;
+
+    private final MeterRegistry meterRegistry;
     /**
      * 用户下单
+     * 分为两个阶段：校验阶段不开启事务，配送范围校验与购物车查询并行执行；
+     * 写入阶段只包含订单、订单明细插入和清空购物车，事务只在这一阶段占用数据库连接
      * @param ordersSubmitDTO
      * @return
      */
-    @Transactional
     @Override
     public OrderSubmitVO submitOrder(OrdersSubmitDTO ordersSubmitDTO) {
-
-        //处理各种异常情况，如地址簿为空，购物车为空等
-        //校验地址簿是否存在
-        AddressBook addressBook = addressBookMapper.getById(ordersSubmitDTO.getAddressBookId());
-        if(addressBook == null){
-            throw new AddressBookBusinessException(MessageConstant.ADDRESS_BOOK_IS_NULL);
-        }
-        //检查客户的收货地址是否超出配送范围
-        checkOutOfRange(addressBook.getCityName(),addressBook.getDistrictName(),addressBook.getDetail());
-        //校验购物车是否存在
         Long userId = BaseContext.getCurrentId();
         if (!orderLockService.tryLockForOrder(userId, 3, 10)) {
             throw new OrderBusinessException("您的订单正在处理中，请勿重复提交");
         }
-        ShoppingCart shoppingCart = new ShoppingCart();
-        shoppingCart.setUserId(userId);
-        List<ShoppingCart> shoppingCartList = shoppingCartMapper.list(shoppingCart);
-        if(shoppingCartList == null || shoppingCartList.isEmpty()){
-            throw new ShoppingCartBusinessException(MessageConstant.SHOPPING_CART_IS_NULL);
+        try {
+            //校验阶段
+            Timer.Sample validateSample = Timer.start(meterRegistry);
+            AddressBook addressBook;
+            List<ShoppingCart> shoppingCartList;
+            try {
+                //校验地址簿是否存在
+                addressBook = addressBookMapper.getById(ordersSubmitDTO.getAddressBookId());
+                if (addressBook == null) {
+                    throw new AddressBookBusinessException(MessageConstant.ADDRESS_BOOK_IS_NULL);
+                }
+                //检查客户的收货地址是否超出配送范围，与购物车查询并行执行
+                AddressBook deliveryAddress = addressBook;
+                CompletableFuture<Void> rangeCheck = CompletableFuture.runAsync(
+                        () -> deliveryRangeService.checkOutOfRange(deliveryAddress), rangeCheckExecutor);
+                //校验购物车是否存在
+                ShoppingCart shoppingCart = new ShoppingCart();
+                shoppingCart.setUserId(userId);
+                shoppingCartList = shoppingCartMapper.list(shoppingCart);
+                joinRangeCheck(rangeCheck);
+                if (shoppingCartList == null || shoppingCartList.isEmpty()) {
+                    throw new ShoppingCartBusinessException(MessageConstant.SHOPPING_CART_IS_NULL);
+                }
+            } finally {
+                validateSample.stop(phaseTimer("validate"));
+            }
+
+            //写入阶段
+            Timer.Sample writeSample = Timer.start(meterRegistry);
+            Orders orders;
+            try {
+                orders = transactionTemplate.execute(status ->
+                        saveOrder(ordersSubmitDTO, addressBook, shoppingCartList, userId));
+            } finally {
+                writeSample.stop(phaseTimer("write"));
+            }
+            //登记支付截止时间，超时未支付自动取消
+            orderTimeoutService.schedule(orders);
+
+            //封装VO返回结果
+            return OrderSubmitVO.builder()
+                    .id(orders.getId())
+                    .orderNumber(orders.getNumber())
+                    .orderAmount(orders.getAmount())
+                    .orderTime(orders.getOrderTime())
+                    .build();
+        } finally {
+            orderLockService.unlockForOrder(userId);
         }
+    }
 
+    /**
+     * 向订单表、订单详情表插入数据并清空购物车，在事务中执行
+     *
+     * @param ordersSubmitDTO
+     * @param addressBook
+     * @param shoppingCartList
+     * @param userId
+     * @return
+     */
+    private Orders saveOrder(OrdersSubmitDTO ordersSubmitDTO, AddressBook addressBook,
+                             List<ShoppingCart> shoppingCartList, Long userId) {
         //向订单表插入1条数据
         Orders orders = new Orders();
         BeanUtils.copyProperties(ordersSubmitDTO,orders);
         orders.setOrderTime(LocalDateTime.now());
         orders.setPayStatus(Orders.UN_PAID);
         orders.setStatus(Orders.PENDING_PAYMENT);
-        orders.setNumber(String.valueOf(System.currentTimeMillis()));
+        orders.setNumber(orderNumberGenerator.nextNumber());
         orders.setPhone(addressBook.getPhone());
         orders.setConsignee(addressBook.getConsignee());
         orders.setAddress(addressBook.getDetail());
@@ -111,7 +176,7 @@ public class OrderServiceImpl implements OrderService {
 
         orderMapper.insert(orders);
         //向订单详情表插入n条数据
-        List<OrderDetail> orderDetailList = new ArrayList<>();
+        List<OrderDetail> orderDetailList = new ArrayList<>(shoppingCartList.size());
         for(ShoppingCart cart : shoppingCartList){
             OrderDetail orderDetail = new OrderDetail();
             BeanUtils.copyProperties(cart,orderDetail);
@@ -121,15 +186,36 @@ public class OrderServiceImpl implements OrderService {
         orderDetailMapper.insertBatch(orderDetailList);
         //清空购物车
         shoppingCartMapper.delete(userId);
-        //封装VO返回结果
-        OrderSubmitVO orderSubmitVO = OrderSubmitVO.builder()
-                .id(orders.getId())
-                .orderNumber(orders.getNumber())
-                .orderAmount(orders.getAmount())
-                .orderTime(orders.getOrderTime())
-                .build();
-        orderLockService.unlockForOrder(userId);
-        return orderSubmitVO;
+        return orders;
+    }
+
+    /**
+     * 等待配送范围校验结果，校验失败时抛出原始的业务异常
+     *
+     * @param rangeCheck
+     */
+    private void joinRangeCheck(CompletableFuture<Void> rangeCheck) {
+        try {
+            rangeCheck.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * 下单各阶段耗时，写入阶段的耗时即事务占用数据库连接的时间
+     *
+     * @param phase
+     * @return
+     */
+    private Timer phaseTimer(String phase) {
+        return Timer.builder("sky.order.submit.phase")
+                .description("用户下单各阶段耗时")
+                .tag("phase", phase)
+                .register(meterRegistry);
     }
 
     /**
@@ -171,6 +257,11 @@ jsonObject.put("code","ORDERPAID");
 
         log.info("调用updateStatus,用于替换微信支付更新数据状态问题");
         orderMapper.updateStatus(OrderStatus,OrderPaidStatus,check_out_time,orderNumber);
+        //与paySuccess一致，已支付的订单不再等待超时取消
+        Orders ordersDB = orderMapper.getByNumber(orderNumber);
+        if (ordersDB != null) {
+            orderTimeoutService.unschedule(ordersDB.getId());
+        }
 
         return vo;
     }
@@ -194,6 +285,7 @@ jsonObject.put("code","ORDERPAID");
                 .build();
 
         orderMapper.update(orders);
+        orderTimeoutService.unschedule(ordersDB.getId());
 
         //通过websocket向客户端浏览器推送消息
         Map map = new HashMap();
@@ -226,21 +318,52 @@ jsonObject.put("code","ORDERPAID");
 
         // 查询出订单明细，并封装入OrderVO进行响应
         if (page != null && page.getTotal() > 0) {
+            // 一次查询出本页所有订单的明细
+            Map<Long, List<OrderDetail>> orderDetailMap = getOrderDetailMap(page.getResult());
             for (Orders orders : page) {
                 Long orderId = orders.getId();// 订单id
 
-                // 查询订单明细
-                List<OrderDetail> orderDetails = orderDetailMapper.getByOrderId(orderId);
-
                 OrderVO orderVO = new OrderVO();
                 BeanUtils.copyProperties(orders, orderVO);
-                orderVO.setOrderDetailList(orderDetails);
+                orderVO.setOrderDetailList(orderDetailMap.getOrDefault(orderId, new ArrayList<>()));
 
                 list.add(orderVO);
             }
         }
         return new PageResult(page.getTotal(), list);
     }
+    /**
+     * 用户端订单游标分页查询
+     *
+     * @param cursor
+     * @param pageSize
+     * @param status
+     * @param withTotal
+     * @return
+     */
+    public PageResult cursorQuery4User(String cursor, int pageSize, Integer status, boolean withTotal) {
+        OrdersPageQueryDTO ordersPageQueryDTO = new OrdersPageQueryDTO();
+        ordersPageQueryDTO.setUserId(BaseContext.getCurrentId());
+        ordersPageQueryDTO.setStatus(status);
+        ordersPageQueryDTO.setPageSize(pageSize);
+        ordersPageQueryDTO.setCursor(cursor);
+        ordersPageQueryDTO.setWithTotal(withTotal);
+
+        CursorPageResult pageResult = cursorQuery(ordersPageQueryDTO);
+        List<Orders> ordersList = pageResult.getRecords();
+
+        // 一次查询出本页所有订单的明细，并封装入OrderVO进行响应
+        Map<Long, List<OrderDetail>> orderDetailMap = getOrderDetailMap(ordersList);
+        List<OrderVO> list = new ArrayList<>(ordersList.size());
+        for (Orders orders : ordersList) {
+            OrderVO orderVO = new OrderVO();
+            BeanUtils.copyProperties(orders, orderVO);
+            orderVO.setOrderDetailList(orderDetailMap.getOrDefault(orders.getId(), new ArrayList<>()));
+            list.add(orderVO);
+        }
+        pageResult.setRecords(list);
+        return pageResult;
+    }
     /**
      * 查询订单详情
      *
@@ -266,6 +389,7 @@ jsonObject.put("code","ORDERPAID");
      *
      * @param id
      */
+    @Transactional
     public void userCancelById(Long id) throws Exception {
         // 根据id查询订单
         Orders ordersDB = orderMapper.getById(id);
@@ -280,27 +404,20 @@ jsonObject.put("code","ORDERPAID");
             throw new OrderBusinessException(MessageConstant.ORDER_STATUS_ERROR);
         }
 
-        Orders orders = new Orders();
-        orders.setId(ordersDB.getId());
-
         // 订单处于待接单状态下取消，需要进行退款
         if (ordersDB.getStatus().equals(Orders.TO_BE_CONFIRMED)) {
-            //调用微信支付退款接口
-            weChatPayUtil.refund(
-                    ordersDB.getNumber(), //商户订单号
-                    ordersDB.getNumber(), //商户退款单号
-                    new BigDecimal(0.01),//退款金额，单位 元
-                    new BigDecimal(0.01));//原订单金额
-
-            //支付状态修改为 退款
-            orders.setPayStatus(Orders.REFUND);
+            //写入退款任务，异步调用微信支付退款接口，退款成功后支付状态修改为 退款
+            refundService.createRefund(ordersDB);
         }
 
         // 更新订单状态、取消原因、取消时间
+        Orders orders = new Orders();
+        orders.setId(ordersDB.getId());
         orders.setStatus(Orders.CANCELLED);
         orders.setCancelReason("用户取消");
         orders.setCancelTime(LocalDateTime.now());
         orderMapper.update(orders);
+        orderTimeoutService.unschedule(ordersDB.getId());
     }
     /**
      * 再来一单
@@ -336,27 +453,35 @@ jsonObject.put("code","ORDERPAID");
      * @return
      */
     public PageResult conditionSearch(OrdersPageQueryDTO ordersPageQueryDTO) {
+        // 传入游标时按游标分页，不执行count查询和offset翻页
+        if (ordersPageQueryDTO.getCursor() != null) {
+            CursorPageResult pageResult = cursorQuery(ordersPageQueryDTO);
+            pageResult.setRecords(getOrderVOList(pageResult.getRecords()));
+            return pageResult;
+        }
+
         PageHelper.startPage(ordersPageQueryDTO.getPage(), ordersPageQueryDTO.getPageSize());
 
         Page<Orders> page = orderMapper.pageQuery(ordersPageQueryDTO);
 
         // 部分订单状态，需要额外返回订单菜品信息，将Orders转化为OrderVO
-        List<OrderVO> orderVOList = getOrderVOList(page);
+        List<OrderVO> orderVOList = getOrderVOList(page.getResult());
 
         return new PageResult(page.getTotal(), orderVOList);
     }
 
-    private List<OrderVO> getOrderVOList(Page<Orders> page) {
+    private List<OrderVO> getOrderVOList(List<Orders> ordersList) {
         // 需要返回订单菜品信息，自定义OrderVO响应结果
         List<OrderVO> orderVOList = new ArrayList<>();
 
-        List<Orders> ordersList = page.getResult();
         if (!CollectionUtils.isEmpty(ordersList)) {
+            // 一次查询出本页所有订单的菜品详情信息
+            Map<Long, List<OrderDetail>> orderDetailMap = getOrderDetailMap(ordersList);
             for (Orders orders : ordersList) {
                 // 将共同字段复制到OrderVO
                 OrderVO orderVO = new OrderVO();
                 BeanUtils.copyProperties(orders, orderVO);
-                String orderDishes = getOrderDishesStr(orders);
+                String orderDishes = getOrderDishesStr(orderDetailMap.get(orders.getId()));
 
                 // 将订单菜品信息封装到orderVO中，并添加到orderVOList
                 orderVO.setOrderDishes(orderDishes);
@@ -366,23 +491,70 @@ jsonObject.put("code","ORDERPAID");
         return orderVOList;
     }
     /**
-     * 根据订单id获取菜品信息字符串
+     * 按(下单时间, id)游标分页查询订单，多查一条判断是否还有下一页
      *
-     * @param orders
+     * @param ordersPageQueryDTO
      * @return
      */
-    private String getOrderDishesStr(Orders orders) {
-        // 查询订单菜品详情信息（订单中的菜品和数量）
-        List<OrderDetail> orderDetailList = orderDetailMapper.getByOrderId(orders.getId());
+    private CursorPageResult cursorQuery(OrdersPageQueryDTO ordersPageQueryDTO) {
+        int pageSize = ordersPageQueryDTO.getPageSize() > 0 ? ordersPageQueryDTO.getPageSize() : DEFAULT_PAGE_SIZE;
+        LocalDateTime cursorTime = null;
+        Long cursorId = null;
+        String cursor = ordersPageQueryDTO.getCursor();
+        if (cursor != null && !cursor.isEmpty()) {
+            try {
+                String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split(",");
+                cursorTime = LocalDateTime.parse(parts[0]);
+                cursorId = Long.valueOf(parts[1]);
+            } catch (RuntimeException e) {
+                throw new OrderBusinessException(MessageConstant.PAGE_CURSOR_INVALID);
+            }
+        }
 
-        // 将每一条订单菜品信息拼接为字符串（格式：宫保鸡丁*3；）
-        List<String> orderDishList = orderDetailList.stream().map(x -> {
-            String orderDish = x.getName() + "*" + x.getNumber() + ";";
-            return orderDish;
-        }).collect(Collectors.toList());
+        List<Orders> ordersList = orderMapper.pageQueryByCursor(ordersPageQueryDTO, cursorTime, cursorId, pageSize + 1);
+        String nextCursor = null;
+        if (ordersList.size() > pageSize) {
+            ordersList = new ArrayList<>(ordersList.subList(0, pageSize));
+            Orders last = ordersList.get(pageSize - 1);
+            nextCursor = Base64.getUrlEncoder().withoutPadding().encodeToString(
+                    (last.getOrderTime() + "," + last.getId()).getBytes(StandardCharsets.UTF_8));
+        }
 
-        // 将该订单对应的所有菜品信息拼接在一起
-        return String.join("", orderDishList);
+        long total = Boolean.TRUE.equals(ordersPageQueryDTO.getWithTotal())
+                ? orderMapper.countByCursorQuery(ordersPageQueryDTO)
+                : CursorPageResult.TOTAL_NOT_COUNTED;
+        return new CursorPageResult(total, ordersList, nextCursor);
+    }
+    /**
+     * 批量查询订单明细，按订单id分组
+     *
+     * @param ordersList
+     * @return
+     */
+    private Map<Long, List<OrderDetail>> getOrderDetailMap(List<Orders> ordersList) {
+        if (CollectionUtils.isEmpty(ordersList)) {
+            return new HashMap<>();
+        }
+        List<Long> orderIds = ordersList.stream().map(Orders::getId).collect(Collectors.toList());
+        return orderDetailMapper.getByOrderIds(orderIds).stream()
+                .collect(Collectors.groupingBy(OrderDetail::getOrderId));
+    }
+    /**
+     * 根据订单明细拼接菜品信息字符串
+     *
+     * @param orderDetailList
+     * @return
+     */
+    private String getOrderDishesStr(List<OrderDetail> orderDetailList) {
+        if (CollectionUtils.isEmpty(orderDetailList)) {
+            return "";
+        }
+        // 将每一条订单菜品信息拼接为字符串（格式：宫保鸡丁*3；）
+        StringBuilder orderDishes = new StringBuilder(orderDetailList.size() * 16);
+        for (OrderDetail orderDetail : orderDetailList) {
+            orderDishes.append(orderDetail.getName()).append('*').append(orderDetail.getNumber()).append(';');
+        }
+        return orderDishes.toString();
     }
     /**
      * 各个状态的订单数量统计
@@ -420,6 +592,7 @@ jsonObject.put("code","ORDERPAID");
      *
      * @param ordersRejectionDTO
      */
+    @Transactional
     public void rejection(OrdersRejectionDTO ordersRejectionDTO) throws Exception {
         // 根据id查询订单
         Orders ordersDB = orderMapper.getById(ordersRejectionDTO.getId());
@@ -432,13 +605,8 @@ jsonObject.put("code","ORDERPAID");
         //支付状态
         Integer payStatus = ordersDB.getPayStatus();
         if (payStatus == Orders.PAID) {
-            //用户已支付，需要退款
-            String refund = weChatPayUtil.refund(
-                    ordersDB.getNumber(),
-                    ordersDB.getNumber(),
-                    new BigDecimal(0.01),
-                    new BigDecimal(0.01));
-            log.info("申请退款：{}", refund);
+            //用户已支付，写入退款任务，异步调用微信支付退款接口
+            refundService.createRefund(ordersDB);
         }
 
         // 拒单需要退款，根据订单id更新订单状态、拒单原因、取消时间
@@ -455,6 +623,7 @@ jsonObject.put("code","ORDERPAID");
      *
      * @param ordersCancelDTO
      */
+    @Transactional
     public void cancel(OrdersCancelDTO ordersCancelDTO) throws Exception {
         // 根据id查询订单
         Orders ordersDB = orderMapper.getById(ordersCancelDTO.getId());
@@ -462,13 +631,8 @@ jsonObject.put("code","ORDERPAID");
         //支付状态
         Integer payStatus = ordersDB.getPayStatus();
         if (payStatus == 1) {
-            //用户已支付，需要退款
-            String refund = weChatPayUtil.refund(
-                    ordersDB.getNumber(),
-                    ordersDB.getNumber(),
-                    new BigDecimal(0.01),
-                    new BigDecimal(0.01));
-            log.info("申请退款：{}", refund);
+            //用户已支付，写入退款任务，异步调用微信支付退款接口
+            refundService.createRefund(ordersDB);
         }
 
         // 管理端取消订单需要退款，根据订单id更新订单状态、取消原因、取消时间
@@ -543,71 +707,4 @@ jsonObject.put("code","ORDERPAID");
         String json = JSON.toJSONString(map);
         webSocketServer.sendToAllClient(json);
     }
-
-    /**
-     * 检查客户的收货地址是否超出配送范围
-     *
-     * @param address
-     * @param districtName
-     * @param detail
-     */
-    private void checkOutOfRange(String address, String districtName, String detail) {
-        Map map = new HashMap();
-        map.put("address",shopAddress);
-        map.put("output","json");
-        map.put("ak",ak);
-
-        //获取店铺的经纬度坐标
-        String shopCoordinate = HttpClientUtil.doGet("https://api.map.baidu.com/geocoding/v3", map);
-
-        JSONObject jsonObject = JSON.parseObject(shopCoordinate);
-        if(!jsonObject.getString("status").equals("0")){
-            throw new OrderBusinessException("店铺地址解析失败");
-        }
-
-        //数据解析
-        JSONObject location = jsonObject.getJSONObject("result").getJSONObject("location");
-        String lat = location.getString("lat");
-        String lng = location.getString("lng");
-        //店铺经纬度坐标
-        String shopLngLat = lat + "," + lng;
-
-        map.put("address",address);
-        //获取用户收货地址的经纬度坐标
-        String userCoordinate = HttpClientUtil.doGet("https://api.map.baidu.com/geocoding/v3", map);
-
-        jsonObject = JSON.parseObject(userCoordinate);
-        if(!jsonObject.getString("status").equals("0")){
-            throw new OrderBusinessException("收货地址解析失败");
-        }
-
-        //数据解析
-        location = jsonObject.getJSONObject("result").getJSONObject("location");
-        lat = location.getString("lat");
-        lng = location.getString("lng");
-        //用户收货地址经纬度坐标
-        String userLngLat = lat + "," + lng;
-
-        map.put("origin",shopLngLat);
-        map.put("destination",userLngLat);
-        map.put("steps_info","0");
-
-        //路线规划
-        String json = HttpClientUtil.doGet("https://api.map.baidu.com/directionlite/v1/driving", map);
-
-        jsonObject = JSON.parseObject(json);
-        if(!jsonObject.getString("status").equals("0")){
-            throw new OrderBusinessException("配送路线规划失败");
-        }
-
-        //数据解析
-        JSONObject result = jsonObject.getJSONObject("result");
-        JSONArray jsonArray = (JSONArray) result.get("routes");
-        Integer distance = (Integer) ((JSONObject) jsonArray.get(0)).get("distance");
-
-        if(distance > 5000){
-            //配送距离超过5000米
-            throw new OrderBusinessException("超出配送范围");
-        }
-    }
-}
+}
\ No newline at end of file
@@ -0,0 +1,108 @@
+package com.sky.service.impl;
+
+import com.sky.entity.Orders;
+import com.sky.properties.OrderTimeoutProperties;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * 超时未支付订单的延时取消
+ * 下单时把订单id按支付截止时间写入Redis有序集合，定时任务每秒弹出已到期的订单并批量取消；
+ * 写入Redis失败或弹出后取消失败的订单由OrderTask的兜底扫描处理
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class OrderTimeoutService {
+
+    public static final String TIMEOUT_CANCEL_REASON = "订单超时未支付";
+
+    private static final String ORDER_TIMEOUT_KEY = "order:timeout";
+
+    //原子地取出并删除截止时间已到的订单，多个节点同时执行时每个订单只会被一个节点取到
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> POP_DUE_SCRIPT = new DefaultRedisScript<>(
+            "local ids = redis.call('zrangebyscore', KEYS[1], '-inf', ARGV[1], 'limit', 0, ARGV[2]) "
+                    + "if #ids > 0 then redis.call('zrem', KEYS[1], unpack(ids)) end "
+                    + "return ids",
+            List.class);
+
+    private final StringRedisTemplate stringRedisTemplate;
+
+    private final OrderTransitionService orderTransitionService;
+
+    private final OrderTimeoutProperties orderTimeoutProperties;
+
+    /**
+     * 登记订单的支付截止时间
+     *
+     * @param orders
+     */
+    public void schedule(Orders orders) {
+        LocalDateTime deadline = orders.getOrderTime().plusMinutes(orderTimeoutProperties.getPaymentMinutes());
+        long score = deadline.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        try {
+            stringRedisTemplate.opsForZSet().add(ORDER_TIMEOUT_KEY, String.valueOf(orders.getId()), score);
+        } catch (Exception e) {
+            log.error("登记订单超时取消失败，由兜底扫描处理，订单id：{}", orders.getId(), e);
+        }
+    }
+
+    /**
+     * 订单已支付或已取消，不再需要超时取消
+     *
+     * @param orderId
+     */
+    public void unschedule(Long orderId) {
+        try {
+            stringRedisTemplate.opsForZSet().remove(ORDER_TIMEOUT_KEY, String.valueOf(orderId));
+        } catch (Exception e) {
+            //取消时会校验订单状态，移除失败不影响正确性
+            log.warn("移除订单超时取消失败，订单id：{}", orderId, e);
+        }
+    }
+
+    /**
+     * 取消所有已到期的订单
+     *
+     * @return 实际取消的订单数
+     */
+    @SuppressWarnings("unchecked")
+    public int processDue() {
+        int batchSize = orderTimeoutProperties.getBatchSize();
+        int cancelled = 0;
+        while (true) {
+            List<String> members = stringRedisTemplate.execute(POP_DUE_SCRIPT,
+                    Collections.singletonList(ORDER_TIMEOUT_KEY),
+                    String.valueOf(System.currentTimeMillis()), String.valueOf(batchSize));
+            if (members == null || members.isEmpty()) {
+                return cancelled;
+            }
+            List<Long> ids = members.stream().map(Long::valueOf).collect(Collectors.toList());
+            cancelled += cancelTimeoutOrders(ids);
+            if (members.size() < batchSize) {
+                return cancelled;
+            }
+        }
+    }
+
+    /**
+     * 批量取消仍处于待付款状态的订单
+     *
+     * @param ids
+     * @return 实际取消的订单数
+     */
+    public int cancelTimeoutOrders(List<Long> ids) {
+        return orderTransitionService.cancel(ids, Orders.PENDING_PAYMENT, TIMEOUT_CANCEL_REASON);
+    }
+}
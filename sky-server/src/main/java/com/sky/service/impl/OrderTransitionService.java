@@ -0,0 +1,74 @@
+package com.sky.service.impl;
+
+import com.sky.entity.Orders;
+import com.sky.mapper.OrderMapper;
+import com.sky.properties.OrderTransitionProperties;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 批量修改订单状态
+ * 按chunkSize分段，每段一条 update ... where id in (...) and status = ? 语句，
+ * 以修改前的状态作为条件，已被其他操作修改过状态的订单不会被覆盖
+ */
+@Service
+@RequiredArgsConstructor
+public class OrderTransitionService {
+
+    private final OrderMapper orderMapper;
+
+    private final OrderTransitionProperties orderTransitionProperties;
+
+    /**
+     * 批量取消订单
+     *
+     * @param ids
+     * @param fromStatus   取消前应处于的状态
+     * @param cancelReason
+     * @return 实际取消的订单数
+     */
+    public int cancel(List<Long> ids, Integer fromStatus, String cancelReason) {
+        Orders target = Orders.builder()
+                .status(Orders.CANCELLED)
+                .cancelReason(cancelReason)
+                .cancelTime(LocalDateTime.now())
+                .build();
+        return transition(ids, fromStatus, target);
+    }
+
+    /**
+     * 批量修改订单状态
+     *
+     * @param ids
+     * @param fromStatus 修改前应处于的状态
+     * @param toStatus
+     * @return 实际修改的订单数
+     */
+    public int transition(List<Long> ids, Integer fromStatus, Integer toStatus) {
+        return transition(ids, fromStatus, Orders.builder().status(toStatus).build());
+    }
+
+    /**
+     * 批量修改订单状态及取消原因、拒单原因、取消时间
+     *
+     * @param ids
+     * @param fromStatus 修改前应处于的状态
+     * @param target
+     * @return 实际修改的订单数
+     */
+    public int transition(List<Long> ids, Integer fromStatus, Orders target) {
+        if (ids == null || ids.isEmpty()) {
+            return 0;
+        }
+        int chunkSize = orderTransitionProperties.getChunkSize();
+        int count = 0;
+        for (int from = 0; from < ids.size(); from += chunkSize) {
+            List<Long> chunk = ids.subList(from, Math.min(from + chunkSize, ids.size()));
+            count += orderMapper.batchTransition(chunk, fromStatus, target);
+        }
+        return count;
+    }
+}
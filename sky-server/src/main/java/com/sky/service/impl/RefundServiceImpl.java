@@ -0,0 +1,192 @@
+package com.sky.service.impl;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONObject;
+import com.sky.entity.OrderRefund;
+import com.sky.entity.Orders;
+import com.sky.mapper.OrderMapper;
+import com.sky.mapper.OrderRefundMapper;
+import com.sky.properties.RefundProperties;
+import com.sky.service.RefundService;
+import com.sky.utils.WeChatPayUtil;
+import com.sky.vo.RefundVO;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang.StringUtils;
+import org.springframework.beans.BeanUtils;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 订单退款
+ * 退款任务与订单状态在同一事务中写入order_refund表，由RefundTask分批领取后在退款线程池中调用微信退款接口，
+ * 失败按指数退避重试。微信以商户退款单号做幂等，同一退款单号重复提交不会重复退款
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class RefundServiceImpl implements RefundService {
+
+    //与下单支付金额保持一致，沙箱环境固定为0.01元
+    private static final BigDecimal REFUND_AMOUNT = new BigDecimal("0.01");
+
+    private static final int ERROR_MSG_MAX_LENGTH = 500;
+
+    private final OrderRefundMapper orderRefundMapper;
+
+    private final OrderMapper orderMapper;
+
+    private final WeChatPayUtil weChatPayUtil;
+
+    private final RefundProperties refundProperties;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final TaskExecutor refundExecutor;
+
+    /**
+     * 创建退款任务
+     *
+     * @param orders
+     */
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void createRefund(Orders orders) {
+        LocalDateTime now = LocalDateTime.now();
+        OrderRefund orderRefund = OrderRefund.builder()
+                .orderId(orders.getId())
+                .outTradeNo(orders.getNumber())
+                .outRefundNo(orders.getNumber())
+                .refundAmount(REFUND_AMOUNT)
+                .totalAmount(REFUND_AMOUNT)
+                .status(OrderRefund.PENDING)
+                .retryCount(0)
+                .nextRetryTime(now)
+                .createTime(now)
+                .updateTime(now)
+                .build();
+        if (orderRefundMapper.insertIgnore(orderRefund) == 0) {
+            log.info("退款任务已存在，商户退款单号：{}", orderRefund.getOutRefundNo());
+        }
+    }
+
+    /**
+     * 根据订单id查询退款
+     *
+     * @param orderId
+     * @return
+     */
+    @Override
+    public RefundVO getByOrderId(Long orderId) {
+        OrderRefund orderRefund = orderRefundMapper.getByOrderId(orderId);
+        if (orderRefund == null) {
+            return null;
+        }
+        RefundVO refundVO = new RefundVO();
+        BeanUtils.copyProperties(orderRefund, refundVO);
+        return refundVO;
+    }
+
+    /**
+     * 领取并执行一批到期的退款任务
+     *
+     * @return
+     */
+    @Override
+    public int processDueRefunds() {
+        LocalDateTime now = LocalDateTime.now();
+        int reset = orderRefundMapper.resetStuck(now.minusMinutes(refundProperties.getStuckTimeoutMinutes()), now,
+                refundProperties.getMaxRetries());
+        if (reset > 0) {
+            log.warn("长时间未完成的退款任务：{}条，未达最大重试次数的重新执行", reset);
+        }
+
+        String claimToken = UUID.randomUUID().toString();
+        if (orderRefundMapper.claimDue(claimToken, now, refundProperties.getBatchSize()) == 0) {
+            return 0;
+        }
+        List<OrderRefund> refunds = orderRefundMapper.getByClaimToken(claimToken);
+
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[refunds.size()];
+        for (int i = 0; i < refunds.size(); i++) {
+            OrderRefund refund = refunds.get(i);
+            futures[i] = CompletableFuture.runAsync(() -> execute(refund), refundExecutor);
+        }
+        CompletableFuture.allOf(futures).join();
+        return refunds.size();
+    }
+
+    /**
+     * 调用微信退款接口
+     *
+     * @param refund
+     */
+    private void execute(OrderRefund refund) {
+        try {
+            String result = weChatPayUtil.refund(
+                    refund.getOutTradeNo(),
+                    refund.getOutRefundNo(),
+                    refund.getRefundAmount(),
+                    refund.getTotalAmount());
+            log.info("申请退款：{}", result);
+
+            //受理成功时返回退款单信息，失败时返回错误码
+            JSONObject jsonObject = JSON.parseObject(result);
+            if (jsonObject == null) {
+                onFailure(refund, "退款接口无响应");
+            } else if (jsonObject.getString("code") != null) {
+                onFailure(refund, jsonObject.getString("code") + "：" + jsonObject.getString("message"));
+            } else {
+                onSuccess(refund);
+            }
+        } catch (Exception e) {
+            log.error("申请退款异常，商户退款单号：{}", refund.getOutRefundNo(), e);
+            onFailure(refund, e.getMessage());
+        }
+    }
+
+    private void onSuccess(OrderRefund refund) {
+        transactionTemplate.executeWithoutResult(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            orderRefundMapper.markSuccess(refund.getId(), now);
+            //支付状态修改为 退款
+            orderMapper.update(Orders.builder()
+                    .id(refund.getOrderId())
+                    .payStatus(Orders.REFUND)
+                    .build());
+        });
+    }
+
+    private void onFailure(OrderRefund refund, String errorMsg) {
+        int retryCount = refund.getRetryCount() + 1;
+        LocalDateTime now = LocalDateTime.now();
+        OrderRefund update = OrderRefund.builder()
+                .id(refund.getId())
+                .retryCount(retryCount)
+                .errorMsg(StringUtils.abbreviate(errorMsg, ERROR_MSG_MAX_LENGTH))
+                .updateTime(now)
+                .build();
+        if (retryCount > refundProperties.getMaxRetries()) {
+            log.error("退款失败，已达最大重试次数，商户退款单号：{}，原因：{}", refund.getOutRefundNo(), errorMsg);
+            update.setStatus(OrderRefund.FAILED);
+            update.setNextRetryTime(refund.getNextRetryTime());
+        } else {
+            //指数退避：base * 2^(retryCount - 1)，不超过最大间隔
+            long backoff = refundProperties.getBaseBackoffSeconds() << Math.min(retryCount - 1, 30);
+            backoff = Math.min(backoff, refundProperties.getMaxBackoffSeconds());
+            log.warn("退款失败，{}秒后重试，商户退款单号：{}，原因：{}", backoff, refund.getOutRefundNo(), errorMsg);
+            update.setStatus(OrderRefund.PENDING);
+            update.setNextRetryTime(now.plusSeconds(backoff));
+        }
+        orderRefundMapper.markFailure(update);
+    }
+}
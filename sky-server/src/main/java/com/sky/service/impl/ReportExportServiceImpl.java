@@ -0,0 +1,295 @@
+package com.sky.service.impl;
+
+import com.sky.constant.MessageConstant;
+import com.sky.context.BaseContext;
+import com.sky.dto.ReportExportDTO;
+import com.sky.exception.ReportBusinessException;
+import com.sky.properties.ReportExportProperties;
+import com.sky.service.ReportExportService;
+import com.sky.vo.ReportExportJobVO;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang.StringUtils;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URLEncoder;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 报表导出任务
+ * 导出在独立的线程池中执行，文件写入本地目录，完成后通过任务id下载，超过保留时间的任务和文件定时清理。
+ * 任务保存在当前实例的内存中，查询进度和下载需要请求到提交任务的实例
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ReportExportServiceImpl implements ReportExportService {
+
+    //报表类型 1运营数据报表
+    private static final int BUSINESS_REPORT = 1;
+
+    //任务状态 1排队中 2导出中 3已完成 4失败
+    private static final int QUEUED = 1;
+    private static final int RUNNING = 2;
+    private static final int FINISHED = 3;
+    private static final int FAILED = 4;
+
+    private static final String FILE_SUFFIX = ".xlsx";
+    private static final String TEMP_SUFFIX = ".tmp";
+    private static final String CONTENT_TYPE = "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet";
+
+    //Tomcat sendfile相关的请求属性，由容器直接把文件写入socket
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    private final BusinessReportExporter businessReportExporter;
+
+    private final ReportExportProperties reportExportProperties;
+
+    private final TaskExecutor reportExportExecutor;
+
+    private final Map<String, ExportJob> jobs = new ConcurrentHashMap<>();
+
+    private Path spoolDir;
+
+    @PostConstruct
+    public void init() throws IOException {
+        spoolDir = Paths.get(reportExportProperties.getSpoolDir()).toAbsolutePath();
+        Files.createDirectories(spoolDir);
+        //任务只保存在内存中，重启前留下的文件已无法下载
+        int deleted = 0;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(spoolDir, "*{" + FILE_SUFFIX + "," + TEMP_SUFFIX + "}")) {
+            for (Path file : files) {
+                Files.deleteIfExists(file);
+                deleted++;
+            }
+        }
+        log.info("报表导出目录：{}，清理遗留文件{}个", spoolDir, deleted);
+    }
+
+    /**
+     * 提交报表导出任务
+     *
+     * @param reportExportDTO
+     * @return
+     */
+    @Override
+    public ReportExportJobVO submit(ReportExportDTO reportExportDTO) {
+        Integer type = reportExportDTO.getType() == null ? BUSINESS_REPORT : reportExportDTO.getType();
+        if (type != BUSINESS_REPORT) {
+            throw new ReportBusinessException(MessageConstant.REPORT_TYPE_INVALID);
+        }
+        LocalDate begin = reportExportDTO.getBegin();
+        LocalDate end = reportExportDTO.getEnd();
+        if (begin == null || end == null || begin.isAfter(end)
+                || ChronoUnit.DAYS.between(begin, end) + 1 > reportExportProperties.getMaxDays()) {
+            throw new ReportBusinessException(MessageConstant.REPORT_DATE_RANGE_INVALID);
+        }
+
+        ExportJob job = new ExportJob(UUID.randomUUID().toString().replace("-", ""),
+                type, begin, end, BaseContext.getCurrentId(), LocalDateTime.now());
+        jobs.put(job.id, job);
+        try {
+            reportExportExecutor.execute(() -> run(job));
+        } catch (TaskRejectedException e) {
+            jobs.remove(job.id);
+            throw new ReportBusinessException(MessageConstant.REPORT_EXPORT_BUSY);
+        }
+        log.info("提交报表导出任务：{}，{}至{}", job.id, begin, end);
+        return toVO(job);
+    }
+
+    /**
+     * 查询导出任务进度
+     *
+     * @param jobId
+     * @return
+     */
+    @Override
+    public ReportExportJobVO getJob(String jobId) {
+        return toVO(requireJob(jobId));
+    }
+
+    /**
+     * 下载导出完成的文件
+     *
+     * @param jobId
+     * @param request
+     * @param response
+     */
+    @Override
+    public void download(String jobId, HttpServletRequest request, HttpServletResponse response) {
+        ExportJob job = requireJob(jobId);
+        if (job.status != FINISHED) {
+            throw new ReportBusinessException(MessageConstant.REPORT_EXPORT_NOT_FINISHED);
+        }
+        Path file = spoolDir.resolve(job.id + FILE_SUFFIX);
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            response.setContentType(CONTENT_TYPE);
+            response.setContentLengthLong(size);
+            String fileName = URLEncoder.encode("运营数据报表_" + job.begin + "_" + job.end + FILE_SUFFIX, "UTF-8");
+            response.setHeader("Content-Disposition", "attachment; filename*=UTF-8''" + fileName);
+
+            //支持sendfile时由Tomcat直接把文件写入socket，否则从文件通道传输到响应输出流
+            if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+                request.setAttribute(SENDFILE_FILENAME, file.toString());
+                request.setAttribute(SENDFILE_START, 0L);
+                request.setAttribute(SENDFILE_END, size);
+                return;
+            }
+            WritableByteChannel target = Channels.newChannel(response.getOutputStream());
+            long position = 0;
+            while (position < size) {
+                position += channel.transferTo(position, size - position, target);
+            }
+            response.flushBuffer();
+        } catch (NoSuchFileException e) {
+            throw new ReportBusinessException(MessageConstant.REPORT_EXPORT_JOB_NOT_FOUND);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * 清理过期的导出任务和文件
+     */
+    @Override
+    public void cleanExpired() {
+        LocalDateTime now = LocalDateTime.now();
+        int cleaned = 0;
+        Iterator<ExportJob> iterator = jobs.values().iterator();
+        while (iterator.hasNext()) {
+            ExportJob job = iterator.next();
+            LocalDateTime expireTime = expireTime(job);
+            if (expireTime != null && expireTime.isBefore(now)) {
+                iterator.remove();
+                deleteQuietly(spoolDir.resolve(job.id + FILE_SUFFIX));
+                cleaned++;
+            }
+        }
+        if (cleaned > 0) {
+            log.info("清理过期的报表导出任务：{}个", cleaned);
+        }
+    }
+
+    /**
+     * 执行导出，先写入临时文件，完成后改名，下载时不会读到写了一半的文件
+     *
+     * @param job
+     */
+    private void run(ExportJob job) {
+        job.status = RUNNING;
+        Path temp = spoolDir.resolve(job.id + TEMP_SUFFIX);
+        try {
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(temp))) {
+                businessReportExporter.export(job.begin, job.end, out, progress -> job.progress = progress);
+            }
+            Files.move(temp, spoolDir.resolve(job.id + FILE_SUFFIX), StandardCopyOption.ATOMIC_MOVE);
+            job.progress = 100;
+            job.finishTime = LocalDateTime.now();
+            job.status = FINISHED;
+            log.info("报表导出完成：{}", job.id);
+        } catch (Exception e) {
+            log.error("报表导出失败：{}", job.id, e);
+            deleteQuietly(temp);
+            job.errorMsg = StringUtils.abbreviate(e.getMessage(), 200);
+            job.finishTime = LocalDateTime.now();
+            job.status = FAILED;
+        }
+    }
+
+    /**
+     * 查询任务，其他管理员提交的任务视为不存在
+     *
+     * @param jobId
+     * @return
+     */
+    private ExportJob requireJob(String jobId) {
+        ExportJob job = jobs.get(jobId);
+        if (job == null || (job.creatorId != null && !job.creatorId.equals(BaseContext.getCurrentId()))) {
+            throw new ReportBusinessException(MessageConstant.REPORT_EXPORT_JOB_NOT_FOUND);
+        }
+        return job;
+    }
+
+    private LocalDateTime expireTime(ExportJob job) {
+        LocalDateTime finishTime = job.finishTime;
+        return finishTime == null ? null : finishTime.plusMinutes(reportExportProperties.getExpireMinutes());
+    }
+
+    private void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("删除导出文件失败：{}", file, e);
+        }
+    }
+
+    private ReportExportJobVO toVO(ExportJob job) {
+        return ReportExportJobVO.builder()
+                .jobId(job.id)
+                .type(job.type)
+                .begin(job.begin)
+                .end(job.end)
+                .status(job.status)
+                .progress(job.progress)
+                .errorMsg(job.errorMsg)
+                .createTime(job.createTime)
+                .finishTime(job.finishTime)
+                .expireTime(expireTime(job))
+                .build();
+    }
+
+    private static class ExportJob {
+
+        private final String id;
+        private final Integer type;
+        private final LocalDate begin;
+        private final LocalDate end;
+        private final Long creatorId;
+        private final LocalDateTime createTime;
+
+        //由导出线程修改，查询线程读取
+        private volatile int status = QUEUED;
+        private volatile int progress;
+        private volatile String errorMsg;
+        private volatile LocalDateTime finishTime;
+
+        ExportJob(String id, Integer type, LocalDate begin, LocalDate end, Long creatorId, LocalDateTime createTime) {
+            this.id = id;
+            this.type = type;
+            this.begin = begin;
+            this.end = end;
+            this.creatorId = creatorId;
+            this.createTime = createTime;
+        }
+    }
+}
@@ -1,37 +1,29 @@
 package com.sky.service.impl;
 
 
+import com.sky.constant.MessageConstant;
 import com.sky.dto.GoodsSalesDTO;
-import com.sky.entity.Orders;
+import com.sky.entity.DailyShopMetrics;
+import com.sky.exception.ReportBusinessException;
 import com.sky.mapper.OrderMapper;
 import com.sky.mapper.UserMapper;
+import com.sky.properties.ReportExportProperties;
 import com.sky.service.ReportService;
-import com.sky.service.WorkspaceService;
 import com.sky.vo.*;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang.StringUtils;
-import org.apache.poi.ss.usermodel.Cell;
-import org.apache.poi.ss.usermodel.Row;
-import org.apache.poi.ss.usermodel.Sheet;
-import org.apache.poi.xssf.usermodel.XSSFRow;
-import org.apache.poi.xssf.usermodel.XSSFSheet;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import org.springframework.stereotype.Service;
 
 
 import javax.servlet.ServletOutputStream;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.OutputStream;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
-import java.util.ArrayList;
-import java.util.HashMap;
+import java.time.temporal.ChronoUnit;
 import java.util.List;
-import java.util.Map;
 import java.util.stream.Collectors;
 
 @Service
@@ -41,7 +33,9 @@ public class ReportServiceImpl implements ReportService {
 
     private final OrderMapper orderMapper;
     private final UserMapper userMapper;
-    private final WorkspaceService workspaceService;
+    private final DailyMetricsService dailyMetricsService;
+    private final BusinessReportExporter businessReportExporter;
+    private final ReportExportProperties reportExportProperties;
 
     /**
      * 营业额统计
@@ -52,32 +46,16 @@ public class ReportServiceImpl implements ReportService {
      */
     @Override
     public TurnoverReportVO getTurnoverStatistics(LocalDate begin, LocalDate end) {
-        //存放begin到end的所有日期
-        List<LocalDate> dateList = new ArrayList<>();
-        // 遍历begin到end的所有日期，将其添加到dateList中
-        for (LocalDate date = begin; !date.isAfter(end); date = date.plusDays(1)) {
-            dateList.add(date);
+        DailyShopMetrics[] metrics = dailyMetricsService.getDailyMetrics(begin, end);
+        int days = metrics.length;
+        //营业额是指状态为已完成的订单的金额总和，没有订单的日期为0
+        double[] turnovers = new double[days];
+        for (int i = 0; i < days; i++) {
+            turnovers[i] = metrics[i].getTurnover().doubleValue();
         }
-        // 遍历dateList，查询每个日期对应的营业额
-        List<Double> turnoverList = new ArrayList<>();
-        for (LocalDate date : dateList) {
-            //查询date日期对应的营业额，营业额是指状态为已完成的订单的金额总和
-            LocalDateTime beginTime = LocalDateTime.of(date, LocalTime.MIN);
-            LocalDateTime endTime = LocalDateTime.of(date, LocalTime.MAX);
-
-            Map map = new HashMap();
-            map.put("begin", beginTime);
-            map.put("end", endTime);
-            map.put("status", Orders.COMPLETED);
-            Double turnover = orderMapper.sumByMap(map);
-            turnover = turnover == null ? 0.0 : turnover;
-            turnoverList.add(turnover);
-        }
-        // 拼接日期列表，格式为：yyyy-MM-dd,yyyy-MM-dd,yyyy-MM-dd
-        String dateListStr = StringUtils.join(dateList, ",");
         return TurnoverReportVO.builder()
-                .dateList(dateListStr)
-                .turnoverList(StringUtils.join(turnoverList, ","))
+                .dateList(joinDates(begin, days))
+                .turnoverList(join(turnovers))
                 .build();
     }
 
@@ -90,37 +68,24 @@ public class ReportServiceImpl implements ReportService {
      */
     @Override
     public UserReportVO getUserStatistics(LocalDate begin, LocalDate end) {
-        // 存放begin到end的所有日期
-        List<LocalDate> dateList = new ArrayList<>();
-        // 遍历begin到end的所有日期，将其添加到dateList中
-        for (LocalDate date = begin; !date.isAfter(end); date = date.plusDays(1)) {
-            dateList.add(date);
+        DailyShopMetrics[] metrics = dailyMetricsService.getDailyMetrics(begin, end);
+        int days = metrics.length;
+        int[] newUsers = new int[days];
+        for (int i = 0; i < days; i++) {
+            newUsers[i] = metrics[i].getNewUsers();
         }
-        // 遍历dateList，查询每个日期对应的用户统计信息
-        List<Integer> totalUserList = new ArrayList<>();
-        List<Integer> newUserList = new ArrayList<>();
-        for (LocalDate date : dateList) {
-            // 查询date日期对应的用户统计信息
-            LocalDateTime beginTime = LocalDateTime.of(date, LocalTime.MIN);
-            LocalDateTime endTime = LocalDateTime.of(date, LocalTime.MAX);
-            Map map = new HashMap();
-
-            map.put("end", endTime);
-            // 查询date日期对应的用户总量
-            Integer totalUser = userMapper.countByMap(map);
-            map.put("begin", beginTime);
-            Integer newUser = userMapper.countByMap(map);
-            totalUser = totalUser == null ? 0 : totalUser;
-            totalUserList.add(totalUser);
-            newUserList.add(newUser == null ? 0 : newUser);
-
+        //用户总量 = 开始日期之前的用户数 + 截至当天的新增用户数之和
+        int[] totalUsers = new int[days];
+        Integer before = userMapper.countBefore(LocalDateTime.of(begin, LocalTime.MIN));
+        int total = before == null ? 0 : before;
+        for (int i = 0; i < days; i++) {
+            total += newUsers[i];
+            totalUsers[i] = total;
         }
-        // 拼接日期列表，格式为：yyyy-MM-dd,yyyy-MM-dd,yyyy-MM-dd
-        String dateListStr = StringUtils.join(dateList, ",");
         return UserReportVO.builder()
-                .dateList(dateListStr)
-                .totalUserList(StringUtils.join(totalUserList, ","))
-                .newUserList(StringUtils.join(newUserList, ","))
+                .dateList(joinDates(begin, days))
+                .totalUserList(join(totalUsers))
+                .newUserList(join(newUsers))
                 .build();
     }
     /**
@@ -132,37 +97,26 @@ public class ReportServiceImpl implements ReportService {
      */
     @Override
     public OrderReportVO getOrderStatistics(LocalDate begin, LocalDate end) {
-        // 存放begin到end的所有日期
-        List<LocalDate> dateList = new ArrayList<>();
-        // 遍历begin到end的所有日期，将其添加到dateList中
-        for (LocalDate date = begin; !date.isAfter(end); date = date.plusDays(1)) {
-            dateList.add(date);
+        DailyShopMetrics[] metrics = dailyMetricsService.getDailyMetrics(begin, end);
+        int days = metrics.length;
+        int[] orderCounts = new int[days];
+        int[] validOrderCounts = new int[days];
+        int totalOrderCount = 0;
+        int validOrderCount = 0;
+        for (int i = 0; i < days; i++) {
+            orderCounts[i] = metrics[i].getTotalOrders();
+            //有效订单是指状态为已完成的订单
+            validOrderCounts[i] = metrics[i].getValidOrders();
+            totalOrderCount += orderCounts[i];
+            validOrderCount += validOrderCounts[i];
         }
-        // 遍历dateList，查询每个日期对应的订单统计信息
-        List<Integer> orderCountList = new ArrayList<>();
-        List<Integer> validOrderCountList = new ArrayList<>();
-        for (LocalDate date : dateList) {
-            // 查询date日期对应的订单统计信息
-            LocalDateTime beginTime = LocalDateTime.of(date, LocalTime.MIN);
-            LocalDateTime endTime = LocalDateTime.of(date, LocalTime.MAX);
-            // 查询date日期对应的订单总量
-            Integer orderCount = getOrderCount(null, beginTime, endTime);
-            orderCountList.add(orderCount);
-            // 查询date日期对应的有效订单量
-            Integer validOrderCount = getOrderCount(Orders.COMPLETED, beginTime, endTime);
-            validOrderCountList.add(validOrderCount);
-
-        }
-        // 拼接日期列表，格式为：yyyy-MM-dd,yyyy-MM-dd,yyyy-MM-dd
-        String dateListStr = StringUtils.join(dateList, ",");
         return OrderReportVO.builder()
-                .dateList(dateListStr)
-                .orderCountList(StringUtils.join(orderCountList, ","))
-                .validOrderCountList(StringUtils.join(validOrderCountList, ","))
-                .totalOrderCount(orderCountList.stream().reduce(Integer::sum).get())
-                .validOrderCount(validOrderCountList.stream().reduce(Integer::sum).get())
-                .orderCompletionRate(orderCountList.stream().reduce(Integer::sum).get() == 0 ? 0.0 :
-                        (double) validOrderCountList.stream().reduce(Integer::sum).get() / orderCountList.stream().reduce(Integer::sum).get())
+                .dateList(joinDates(begin, days))
+                .orderCountList(join(orderCounts))
+                .validOrderCountList(join(validOrderCounts))
+                .totalOrderCount(totalOrderCount)
+                .validOrderCount(validOrderCount)
+                .orderCompletionRate(totalOrderCount == 0 ? 0.0 : (double) validOrderCount / totalOrderCount)
                 .build();
     }
 
@@ -189,71 +143,73 @@ public class ReportServiceImpl implements ReportService {
     }
     /**
      * 导出业务数据报表
+     * @param begin
+     * @param end
      * @param response
      */
     @Override
-    public void exportBusinessData(HttpServletResponse response) {
-        //1.查询数据库,获取营业数据---查询最近30天的营业数据
-        LocalDate beginTime = LocalDate.now().minusDays(30);
-        LocalDate endTime = LocalDate.now();
-        LocalDateTime beginDateTime = LocalDateTime.of(beginTime, LocalTime.MIN);
-        LocalDateTime endDateTime = LocalDateTime.of(endTime, LocalTime.MAX);
-        BusinessDataVO businessDataVO = workspaceService.getBusinessData(beginDateTime, endDateTime);
-        //2.通过POI将数据写入到Excel文件中
-        InputStream in = this.getClass().getClassLoader().getResourceAsStream("template/运营数据报表模板.xlsx");
+    public void exportBusinessData(LocalDate begin, LocalDate end, HttpServletResponse response) {
+        //同步导出在请求线程中生成文件，只允许模板大小的日期范围，更长的范围通过导出任务在后台生成
+        if (begin == null || end == null || begin.isAfter(end)) {
+            throw new ReportBusinessException(MessageConstant.REPORT_DATE_RANGE_INVALID);
+        }
+        if (ChronoUnit.DAYS.between(begin, end) + 1 > reportExportProperties.getSyncMaxDays()) {
+            throw new ReportBusinessException(MessageConstant.REPORT_SYNC_EXPORT_TOO_LONG);
+        }
         try {
-            XSSFWorkbook workbook = new XSSFWorkbook(in);
-            XSSFSheet sheet = workbook.getSheet("Sheet1");
-            sheet.getRow(1).getCell(1).setCellValue("时间：" + beginTime + "至" + endTime);
-            XSSFRow row = sheet.getRow(3);
-            row.getCell(2).setCellValue(businessDataVO.getTurnover());
-            row.getCell(4).setCellValue(businessDataVO.getOrderCompletionRate());
-            row.getCell(6).setCellValue(businessDataVO.getValidOrderCount());
-            row =  sheet.getRow(4);
-            row.getCell(2).setCellValue(businessDataVO.getValidOrderCount());
-            row.getCell(4).setCellValue(businessDataVO.getUnitPrice());
-
-            //填充明细数据
-            for (int i = 0; i < 30; i++) {
-                LocalDate date = beginTime.plusDays(i);
-                LocalDateTime dateBeginTime = LocalDateTime.of(date, LocalTime.MIN);
-                LocalDateTime dateEndTime = LocalDateTime.of(date, LocalTime.MAX);
-                BusinessDataVO businessDataVO1 = workspaceService.getBusinessData(dateBeginTime, dateEndTime);
-                row = sheet.getRow(7 + i);
-                row.getCell(1).setCellValue(date.toString());
-                row.getCell(2).setCellValue(businessDataVO1.getTurnover());
-                row.getCell(3).setCellValue(businessDataVO1.getValidOrderCount());
-                row.getCell(4).setCellValue(businessDataVO1.getOrderCompletionRate());
-                row.getCell(5).setCellValue(businessDataVO1.getUnitPrice());
-                row.getCell(6).setCellValue(businessDataVO1.getNewUsers());
-            }
-
-
-            //3.通过输出流将Excel文件下载到客户端浏览器
+            //通过输出流将Excel文件下载到客户端浏览器
             ServletOutputStream out = response.getOutputStream();
-            workbook.write(out);
+            businessReportExporter.export(begin, end, out);
             out.close();
-            workbook.close();
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
-
     }
 
     /**
-     * 根据状态和下单时间查询订单数量
-     * @param status
+     * 汇总每日营业数据，用于回填历史数据
      * @param begin
      * @param end
      * @return
      */
-    private Integer getOrderCount(Integer status, LocalDateTime begin, LocalDateTime end) {
-        Map map = new HashMap();
-        map.put("begin", begin);
-        map.put("end", end);
-        map.put("status", status);
-        // 查询date日期对应的订单总量
-        Integer orderCount = orderMapper.countByMap(map);
-        return orderCount == null ? 0 : orderCount;
+    @Override
+    public int rollupDailyMetrics(LocalDate begin, LocalDate end) {
+        return dailyMetricsService.rollup(begin, end).size();
+    }
+
+    /**
+     * 拼接日期列表，格式为：yyyy-MM-dd,yyyy-MM-dd,yyyy-MM-dd
+     */
+    private String joinDates(LocalDate begin, int days) {
+        StringBuilder sb = new StringBuilder(days * 11);
+        for (int i = 0; i < days; i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append(begin.plusDays(i));
+        }
+        return sb.toString();
+    }
+
+    private String join(int[] values) {
+        StringBuilder sb = new StringBuilder(values.length * 4);
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append(values[i]);
+        }
+        return sb.toString();
+    }
+
+    private String join(double[] values) {
+        StringBuilder sb = new StringBuilder(values.length * 8);
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append(values[i]);
+        }
+        return sb.toString();
     }
 }
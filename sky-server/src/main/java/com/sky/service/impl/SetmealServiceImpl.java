@@ -1,6 +1,5 @@
 package com.sky.service.impl;
 
-import com.alibaba.fastjson.JSON;
 import com.github.pagehelper.Page;
 import com.github.pagehelper.PageHelper;
 import com.sky.constant.MessageConstant;
@@ -23,18 +22,14 @@ import com.sky.vo.DishVO;
 import com.sky.vo.SetmealVO;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.redisson.api.RLock;
-import org.redisson.api.RedissonClient;
 import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
-import java.util.concurrent.TimeUnit;
-
-import static com.sky.utils.RandomTtlUtil.getRandomTtl;
 
 @RequiredArgsConstructor
 @Slf4j
@@ -44,13 +39,9 @@ public class SetmealServiceImpl implements SetmealService {
     private final SetmealMapper setmealMapper;
     private final SetmealDishMapper setmealDishMapper;
     private final DishMapper dishMapper;
-    private final StringRedisTemplate stringRedisTemplate;
-    private final RedissonClient redissonClient;
-
-    private static final String SETMEAL_KEY_PREFIX = "setmeal:";
-    private static final String NULL_VALUE = "NULL";
-    private static final long NULL_CACHE_TTL = 300;
-    private static final String LOCK_KEY_PREFIX = "lock:setmeal:";
+    private final MenuAggregateCache menuAggregateCache;
+    private final MenuIdFilter menuIdFilter;
+    private final MenuCountService menuCountService;
 
     @Transactional
     @Override
@@ -60,8 +51,9 @@ public class SetmealServiceImpl implements SetmealService {
         BeanUtils.copyProperties(setmealDTO, setmeal);
         //向套餐表插入1条数据
         setmealMapper.insert(setmeal);
-        String cacheKey = SETMEAL_KEY_PREFIX + setmeal.getId();
-        stringRedisTemplate.delete(cacheKey);
+        menuIdFilter.addSetmeal(setmeal.getId());
+        menuCountService.setmealChanged(null, null, setmeal.getCategoryId(), setmeal.getStatus());
+        menuAggregateCache.evictSetmeals(Collections.singletonList(setmeal.getId()));
         //获取套餐id
         Long setmealId = setmeal.getId();
         //将SetmealDishDTO转换为SetmealDish实体类
@@ -79,10 +71,13 @@ public class SetmealServiceImpl implements SetmealService {
         return new PageResult(pageInfo.getTotal(), pageInfo.getResult());
     }
 
+    @Transactional
     @Override
     public void delete(List<Long> ids) {
+        List<Setmeal> setmealList = new ArrayList<>(ids.size());
         ids.forEach(id -> {
             Setmeal setmeal = setmealMapper.getById(id);
+            setmealList.add(setmeal);
             if(StatusConstant.ENABLE == setmeal.getStatus()){
                 //起售中的套餐不能删除
                 throw new DeletionNotAllowedException(MessageConstant.SETMEAL_ON_SALE);
@@ -94,84 +89,45 @@ public class SetmealServiceImpl implements SetmealService {
             //删除套餐菜品关系表中的数据
             setmealDishMapper.deleteBySetmealId(setmealId);
         });
+        menuAggregateCache.evictSetmeals(ids);
+        setmealList.forEach(setmeal ->
+                menuCountService.setmealChanged(setmeal.getCategoryId(), setmeal.getStatus(), null, null));
     }
 
     @Override
     public SetmealVO getById(Long id) {
-        String cacheKey = SETMEAL_KEY_PREFIX + id;
-        String lockKey = LOCK_KEY_PREFIX + id;
-
-        RLock lock = redissonClient.getLock(lockKey);
-
-        String cacheValue = stringRedisTemplate.opsForValue().get(cacheKey);
-        if (cacheValue != null) {
-            if (NULL_VALUE.equals(cacheValue)) {
-                log.info("命中空值缓存，套餐ID: {}", id);
-                return null;
-            }
-
-             Setmeal setmeal = JSON.parseObject(cacheValue, Setmeal.class);
-            List<SetmealDish> setmealDishes = setmealDishMapper.getBySetmealId(id);
-             //将Setmeal实体类转换为SetmealVO
-             SetmealVO setmealVO = new SetmealVO();
-             BeanUtils.copyProperties(setmeal, setmealVO);
-             setmealVO.setSetmealDishes(setmealDishes);
-             return setmealVO;
+        //布隆过滤器判断不存在的id不再查询缓存和数据库
+        if (!menuIdFilter.mightContainSetmeal(id)) {
+            return null;
         }
-        try {
-            boolean locked = lock.tryLock(100, 3000, TimeUnit.MILLISECONDS);
-            if (locked) {
-                cacheValue = stringRedisTemplate.opsForValue().get(cacheKey);
-                if (cacheValue != null) {
-                    Setmeal setmeal = JSON.parseObject(cacheValue, Setmeal.class);
-                    //将Setmeal实体类转换为SetmealVO
-                    List<SetmealDish> setmealDishes = setmealDishMapper.getBySetmealId(id);
-                    SetmealVO setmealVO = new SetmealVO();
-                    BeanUtils.copyProperties(setmeal, setmealVO);
-                    setmealVO.setSetmealDishes(setmealDishes);
-                    return setmealVO;
-                }
-                Setmeal setmeal = setmealMapper.getById(id);
-                String jsonString = JSON.toJSONString(setmeal);
-                if (setmeal == null) {
-                    // 缓存空对象，短TTL
-                    stringRedisTemplate.opsForValue().set(cacheKey, NULL_VALUE,
-                            NULL_CACHE_TTL, TimeUnit.SECONDS);
-                    log.info("缓存空对象，套餐ID: {}", id);
-                } else {
-                    // 缓存真实数据
-                    stringRedisTemplate.opsForValue().set(cacheKey, jsonString,
-                            getRandomTtl(), TimeUnit.SECONDS);
-                }
-                List<SetmealDish> setmealDishes = setmealDishMapper.getBySetmealId(id);
-
-                SetmealVO setmealVO = new SetmealVO();
-                BeanUtils.copyProperties(setmeal, setmealVO);
-                setmealVO.setSetmealDishes(setmealDishes);
-
-                return setmealVO;
-            }else {
-                log.info("获取锁失败，等待后重试，套餐ID: {}", id);
-                Thread.sleep(50);
-                return getById(id);
-            }
-    }catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            throw new RuntimeException("获取锁失败", e);
-        } finally {
-            if (lock.isHeldByCurrentThread()) {
-                lock.unlock();
+        return menuAggregateCache.getSetmeal(id, () -> {
+            Setmeal setmeal = setmealMapper.getById(id);
+            if (setmeal == null) {
+                menuIdFilter.recordSetmealFalsePositive();
+                return null;
             }
-        }
+            //将Setmeal实体类转换为SetmealVO
+            SetmealVO setmealVO = new SetmealVO();
+            BeanUtils.copyProperties(setmeal, setmealVO);
+            setmealVO.setSetmealDishes(setmealDishMapper.getBySetmealId(id));
+            return setmealVO;
+        });
     }
+
     @Transactional
     @Override
     public void update(SetmealDTO setmealDTO) {
+        Setmeal old = setmealMapper.getById(setmealDTO.getId());
         //将SetmealDTO转换为Setmeal实体类
         Setmeal setmeal = new Setmeal();
         BeanUtils.copyProperties(setmealDTO, setmeal);
         //更新套餐表中的数据
         setmealMapper.update(setmeal);
+        if (old != null) {
+            menuCountService.setmealChanged(old.getCategoryId(), old.getStatus(),
+                    setmeal.getCategoryId() != null ? setmeal.getCategoryId() : old.getCategoryId(),
+                    setmeal.getStatus() != null ? setmeal.getStatus() : old.getStatus());
+        }
 
         //删除套餐菜品关系表中的数据
         setmealDishMapper.deleteBySetmealId(setmealDTO.getId());
@@ -181,6 +137,7 @@ public class SetmealServiceImpl implements SetmealService {
         }
         //向套餐菜品关系表插入n条数据
         setmealDishMapper.insertBatch(setmealDTO.getSetmealDishes());
+        menuAggregateCache.evictSetmeals(Collections.singletonList(setmealDTO.getId()));
     }
 
     /**
@@ -202,11 +159,16 @@ public class SetmealServiceImpl implements SetmealService {
             }
         }
 
+        Setmeal old = setmealMapper.getById(id);
         Setmeal setmeal = Setmeal.builder()
                 .id(id)
                 .status(status)
                 .build();
         setmealMapper.update(setmeal);
+        menuAggregateCache.evictSetmeals(Collections.singletonList(id));
+        if (old != null) {
+            menuCountService.setmealChanged(old.getCategoryId(), old.getStatus(), old.getCategoryId(), status);
+        }
     }
 
     @Override
@@ -0,0 +1,107 @@
+package com.sky.service.impl;
+
+import com.sky.properties.ShopProperties;
+import com.sky.service.ShopService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 店铺营业状态
+ * 状态保存在Redis中，各节点在内存中持有一份，查询时不访问Redis；
+ * 修改后通过Redis发布订阅通知所有节点，并定时从Redis重新读取，防止通知丢失
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ShopServiceImpl implements ShopService, MessageListener {
+
+    private static final String KEY = "SHOP_STATUS";
+
+    private static final String CHANNEL = "shop:status";
+
+    private final StringRedisTemplate stringRedisTemplate;
+
+    private final RedisMessageListenerContainer redisMessageListenerContainer;
+
+    private final ShopProperties shopProperties;
+
+    private volatile Integer status;
+
+    @PostConstruct
+    public void init() {
+        status = shopProperties.getDefaultStatus();
+        redisMessageListenerContainer.addMessageListener(this, new ChannelTopic(CHANNEL));
+        try {
+            //Redis中没有状态时写入默认状态，所有节点以Redis中的状态为准
+            stringRedisTemplate.opsForValue().setIfAbsent(KEY, String.valueOf(shopProperties.getDefaultStatus()));
+            reconcile();
+        } catch (Exception e) {
+            log.error("读取店铺状态失败，使用默认状态：{}", status, e);
+        }
+    }
+
+    /**
+     * 查询店铺状态
+     *
+     * @return 1 营业中 0 打烊中
+     */
+    @Override
+    public Integer getStatus() {
+        return status;
+    }
+
+    /**
+     * 设置店铺状态并通知所有节点
+     *
+     * @param status
+     */
+    @Override
+    public void setStatus(Integer status) {
+        String value = String.valueOf(status);
+        stringRedisTemplate.opsForValue().set(KEY, value);
+        this.status = status;
+        stringRedisTemplate.convertAndSend(CHANNEL, value);
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        Integer value = parse(new String(message.getBody(), StandardCharsets.UTF_8));
+        if (value != null) {
+            status = value;
+        }
+    }
+
+    /**
+     * 从Redis重新读取店铺状态
+     */
+    @Scheduled(fixedDelayString = "#{@shopProperties.statusReconcileSeconds * 1000}")
+    public void reconcile() {
+        Integer value = parse(stringRedisTemplate.opsForValue().get(KEY));
+        if (value != null && !value.equals(status)) {
+            log.info("店铺状态与Redis不一致，更新为：{}", value);
+            status = value;
+        }
+    }
+
+    private Integer parse(String value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return Integer.valueOf(value.trim());
+        } catch (NumberFormatException e) {
+            log.warn("店铺状态格式错误：{}", value);
+            return null;
+        }
+    }
+}
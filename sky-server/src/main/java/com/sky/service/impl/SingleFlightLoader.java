@@ -0,0 +1,118 @@
+package com.sky.service.impl;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * 合并同一节点上对同一个key的并发加载
+ * 第一个未命中的线程执行加载，其他线程等待同一个CompletableFuture，等待时间有上限，不会占用线程反复重试
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SingleFlightLoader {
+
+    private final TaskExecutor taskExecutor;
+
+    //key -> 进行中的加载
+    private final ConcurrentHashMap<String, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * 加载数据，同一key已有进行中的加载时等待其结果
+     *
+     * @param key
+     * @param loader        加载数据，由第一个调用的线程执行
+     * @param timeoutMillis 等待其他线程加载结果的最长时间，单位 毫秒
+     * @param onTimeout     等待超时时返回的结果
+     * @return
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T load(String key, Supplier<T> loader, long timeoutMillis, Supplier<T> onTimeout) {
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        CompletableFuture<Object> existing = inFlight.putIfAbsent(key, future);
+        if (existing == null) {
+            run(key, future, loader);
+            return (T) join(future);
+        }
+
+        try {
+            return (T) unwrap(existing, timeoutMillis);
+        } catch (TimeoutException e) {
+            log.warn("等待加载超时：{}", key);
+            return onTimeout.get();
+        }
+    }
+
+    /**
+     * 在后台线程中重新加载，同一key已有进行中的加载时忽略
+     *
+     * @param key
+     * @param loader
+     * @param stale  当前的旧值，后台任务被拒绝时作为等待本次加载的线程的结果
+     */
+    public <T> void refresh(String key, Supplier<T> loader, T stale) {
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        if (inFlight.putIfAbsent(key, future) != null) {
+            return;
+        }
+        try {
+            taskExecutor.execute(() -> run(key, future, loader));
+        } catch (TaskRejectedException e) {
+            //线程池已满，本次不刷新，下次读到过期数据时再次尝试；期间加入等待的线程拿到旧值
+            log.warn("后台加载任务被拒绝：{}", key);
+            future.complete(stale);
+            inFlight.remove(key, future);
+        }
+    }
+
+    private void run(String key, CompletableFuture<Object> future, Supplier<?> loader) {
+        try {
+            future.complete(loader.get());
+        } catch (Throwable e) {
+            log.error("加载失败：{}", key, e);
+            future.completeExceptionally(e);
+        } finally {
+            inFlight.remove(key, future);
+        }
+    }
+
+    private Object join(CompletableFuture<Object> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            throw propagate(e.getCause());
+        }
+    }
+
+    private Object unwrap(CompletableFuture<Object> future, long timeoutMillis) throws TimeoutException {
+        try {
+            return future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("等待加载结果被中断", e);
+        } catch (ExecutionException e) {
+            throw propagate(e.getCause());
+        }
+    }
+
+    private RuntimeException propagate(Throwable cause) {
+        if (cause instanceof RuntimeException) {
+            return (RuntimeException) cause;
+        }
+        if (cause instanceof Error) {
+            throw (Error) cause;
+        }
+        return new RuntimeException(cause);
+    }
+}
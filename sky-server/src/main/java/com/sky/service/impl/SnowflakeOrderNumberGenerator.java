@@ -0,0 +1,206 @@
+package com.sky.service.impl;
+
+import com.sky.properties.OrderNumberProperties;
+import com.sky.service.OrderNumberGenerator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.net.InetAddress;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 雪花算法订单号生成器
+ * 订单号由 41位时间戳 + 10位机器号 + 12位序列号 组成，机器号通过Redis租约分配，保证多个节点之间不重复。
+ * 时间戳和序列号合并保存在一个AtomicLong中，通过CAS分配，不加锁
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class SnowflakeOrderNumberGenerator implements OrderNumberGenerator {
+
+    private static final int SEQUENCE_BITS = 12;
+    private static final int WORKER_ID_BITS = 10;
+    private static final long MAX_SEQUENCE = (1L << SEQUENCE_BITS) - 1;
+    private static final int MAX_WORKER_ID = (1 << WORKER_ID_BITS) - 1;
+
+    private static final String WORKER_KEY_PREFIX = "order:number:worker:";
+
+    //租约仍属于当前节点时才续期/释放
+    private static final RedisScript<Long> RENEW_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('pexpire', KEYS[1], ARGV[2]) else return 0 end",
+            Long.class);
+    private static final RedisScript<Long> RELEASE_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end",
+            Long.class);
+
+    private final StringRedisTemplate stringRedisTemplate;
+
+    private final OrderNumberProperties orderNumberProperties;
+
+    //高位为相对起始时间的毫秒数，低12位为序列号
+    private final AtomicLong state = new AtomicLong();
+
+    private final String leaseToken = hostName() + ":" + UUID.randomUUID();
+
+    private volatile int workerId = -1;
+
+    //租约到期时间，超过后不再使用该机器号
+    private volatile long leaseExpireTime;
+
+    @PostConstruct
+    public void init() {
+        acquireWorkerId();
+    }
+
+    /**
+     * 生成订单号
+     *
+     * @return
+     */
+    @Override
+    public String nextNumber() {
+        return String.valueOf(nextId());
+    }
+
+    /**
+     * 生成id：时钟回拨不超过允许值时沿用上次的时间戳，序列号用完后进位到下一毫秒，最多借用一毫秒
+     *
+     * @return
+     */
+    public long nextId() {
+        int worker = currentWorkerId();
+        while (true) {
+            long last = state.get();
+            long lastTime = last >>> SEQUENCE_BITS;
+            long now = System.currentTimeMillis() - orderNumberProperties.getEpoch();
+
+            long next;
+            if (now > lastTime) {
+                next = now << SEQUENCE_BITS;
+            } else {
+                long backward = lastTime - now;
+                if (backward > orderNumberProperties.getMaxBackwardMillis()) {
+                    throw new IllegalStateException("系统时钟回拨" + backward + "毫秒，暂停生成订单号");
+                }
+                if ((last & MAX_SEQUENCE) == MAX_SEQUENCE && backward > 0) {
+                    //已借用的下一毫秒序列号也已用完，等待时钟追上，避免持续借用未来时间被误判为时钟回拨
+                    Thread.yield();
+                    continue;
+                }
+                next = last + 1;
+            }
+
+            if (state.compareAndSet(last, next)) {
+                return ((next >>> SEQUENCE_BITS) << (WORKER_ID_BITS + SEQUENCE_BITS))
+                        | ((long) worker << SEQUENCE_BITS)
+                        | (next & MAX_SEQUENCE);
+            }
+        }
+    }
+
+    /**
+     * 续期机器号租约，租约已丢失时重新申请
+     */
+    @Scheduled(fixedDelayString = "#{@orderNumberProperties.workerLeaseSeconds * 1000 / 3}")
+    public void renewLease() {
+        int worker = workerId;
+        if (worker < 0) {
+            acquireWorkerId();
+            return;
+        }
+        long leaseMillis = orderNumberProperties.getWorkerLeaseSeconds() * 1000;
+        long start = System.currentTimeMillis();
+        try {
+            Long renewed = stringRedisTemplate.execute(RENEW_SCRIPT,
+                    Collections.singletonList(WORKER_KEY_PREFIX + worker), leaseToken, String.valueOf(leaseMillis));
+            if (renewed != null && renewed == 1) {
+                leaseExpireTime = start + leaseMillis;
+                return;
+            }
+            log.warn("订单号机器号{}的租约已失效，重新申请", worker);
+            synchronized (this) {
+                if (workerId == worker) {
+                    workerId = -1;
+                }
+            }
+            acquireWorkerId();
+        } catch (Exception e) {
+            //Redis暂时不可用时继续使用当前机器号，直到租约到期
+            log.error("续期订单号机器号{}失败", worker, e);
+        }
+    }
+
+    @PreDestroy
+    public void destroy() {
+        int worker = workerId;
+        if (worker < 0) {
+            return;
+        }
+        try {
+            stringRedisTemplate.execute(RELEASE_SCRIPT,
+                    Collections.singletonList(WORKER_KEY_PREFIX + worker), leaseToken);
+        } catch (Exception e) {
+            log.warn("释放订单号机器号{}失败", worker, e);
+        }
+    }
+
+    private int currentWorkerId() {
+        int worker = workerId;
+        if (worker >= 0 && System.currentTimeMillis() < leaseExpireTime) {
+            return worker;
+        }
+        //租约过期后机器号可能已被其他节点使用，重新申请后才能继续生成
+        worker = acquireWorkerId();
+        if (worker < 0) {
+            throw new IllegalStateException("没有可用的订单号机器号");
+        }
+        return worker;
+    }
+
+    /**
+     * 从随机位置开始依次尝试占用机器号
+     *
+     * @return 申请到的机器号，全部被占用时返回-1
+     */
+    private synchronized int acquireWorkerId() {
+        if (workerId >= 0 && System.currentTimeMillis() < leaseExpireTime) {
+            return workerId;
+        }
+        long leaseMillis = orderNumberProperties.getWorkerLeaseSeconds() * 1000;
+        int offset = ThreadLocalRandom.current().nextInt(MAX_WORKER_ID + 1);
+        for (int i = 0; i <= MAX_WORKER_ID; i++) {
+            int candidate = (offset + i) & MAX_WORKER_ID;
+            long start = System.currentTimeMillis();
+            Boolean success = stringRedisTemplate.opsForValue().setIfAbsent(
+                    WORKER_KEY_PREFIX + candidate, leaseToken, Duration.ofMillis(leaseMillis));
+            if (Boolean.TRUE.equals(success)) {
+                leaseExpireTime = start + leaseMillis;
+                workerId = candidate;
+                log.info("订单号机器号：{}", candidate);
+                return candidate;
+            }
+        }
+        workerId = -1;
+        log.error("订单号机器号已全部被占用");
+        return -1;
+    }
+
+    private static String hostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            return "unknown";
+        }
+    }
+}
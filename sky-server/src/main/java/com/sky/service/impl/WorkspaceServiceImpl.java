@@ -1,24 +1,27 @@
 package com.sky.service.impl;
 
 import com.sky.constant.StatusConstant;
-import com.sky.entity.Orders;
-import com.sky.mapper.DishMapper;
-import com.sky.mapper.OrderMapper;
-import com.sky.mapper.SetmealMapper;
+import com.sky.entity.DailyShopMetrics;
+import com.sky.mapper.DailyShopMetricsMapper;
 import com.sky.mapper.UserMapper;
 import com.sky.service.WorkspaceService;
 import com.sky.vo.BusinessDataVO;
+import com.sky.vo.DashboardVO;
 import com.sky.vo.DishOverViewVO;
 import com.sky.vo.OrderOverViewVO;
 import com.sky.vo.SetmealOverViewVO;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.task.TaskExecutor;
 import org.springframework.stereotype.Service;
+import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 @Service
 @Slf4j
@@ -26,10 +29,11 @@ import java.util.Map;
 public class WorkspaceServiceImpl implements WorkspaceService {
 
 
-    private final OrderMapper orderMapper;
+    private final DailyShopMetricsMapper dailyShopMetricsMapper;
     private final UserMapper userMapper;
-    private final DishMapper dishMapper;
-    private final SetmealMapper setmealMapper;
+    private final MenuCountService menuCountService;
+    private final DailyMetricsService dailyMetricsService;
+    private final TaskExecutor dashboardExecutor;
 
     /**
      * 根据时间段统计营业数据
@@ -38,6 +42,11 @@ public class WorkspaceServiceImpl implements WorkspaceService {
      * @return
      */
     public BusinessDataVO getBusinessData(LocalDateTime begin, LocalDateTime end) {
+        //整天的时间段按天汇总，已结束的日期读取汇总表
+        if (begin.toLocalTime().equals(LocalTime.MIN) && end.toLocalTime().equals(LocalTime.MAX)) {
+            return getBusinessData(begin.toLocalDate(), end.toLocalDate());
+        }
+
         /**
          * 营业额：当日已完成订单的总金额
          * 有效订单：当日已完成订单的数量
@@ -46,20 +55,11 @@ public class WorkspaceServiceImpl implements WorkspaceService {
          * 新增用户：当日新增用户的数量
          */
 
-        Map map = new HashMap();
-        map.put("begin",begin);
-        map.put("end",end);
-
-        //查询总订单数
-        Integer totalOrderCount = orderMapper.countByMap(map);
-
-        map.put("status", Orders.COMPLETED);
-        //营业额
-        Double turnover = orderMapper.sumByMap(map);
-        turnover = turnover == null? 0.0 : turnover;
-
-        //有效订单数
-        Integer validOrderCount = orderMapper.countByMap(map);
+        //一次条件聚合查询得到总订单数、有效订单数和营业额
+        DailyShopMetrics orders = dailyShopMetricsMapper.sumOrders(begin, end);
+        Double turnover = orders.getTurnover().doubleValue();
+        Integer totalOrderCount = orders.getTotalOrders();
+        Integer validOrderCount = orders.getValidOrders();
 
         Double unitPrice = 0.0;
 
@@ -72,6 +72,9 @@ public class WorkspaceServiceImpl implements WorkspaceService {
         }
 
         //新增用户数
+        Map map = new HashMap();
+        map.put("begin",begin);
+        map.put("end",end);
         Integer newUsers = userMapper.countByMap(map);
 
         return BusinessDataVO.builder()
@@ -85,40 +88,61 @@ public class WorkspaceServiceImpl implements WorkspaceService {
 
 
     /**
-     * 查询订单管理数据
-     *
+     * 根据日期统计营业数据
+     * @param begin
+     * @param end
      * @return
      */
-    public OrderOverViewVO getOrderOverView() {
-        Map map = new HashMap();
-        map.put("begin", LocalDateTime.now().with(LocalTime.MIN));
-        map.put("status", Orders.TO_BE_CONFIRMED);
-
-        //待接单
-        Integer waitingOrders = orderMapper.countByMap(map);
-
-        //待派送
-        map.put("status", Orders.CONFIRMED);
-        Integer deliveredOrders = orderMapper.countByMap(map);
+    private BusinessDataVO getBusinessData(LocalDate begin, LocalDate end) {
+        BigDecimal turnover = BigDecimal.ZERO;
+        int totalOrderCount = 0;
+        int validOrderCount = 0;
+        int newUsers = 0;
+        for (DailyShopMetrics daily : dailyMetricsService.getDailyMetrics(begin, end)) {
+            turnover = turnover.add(daily.getTurnover());
+            totalOrderCount += daily.getTotalOrders();
+            validOrderCount += daily.getValidOrders();
+            newUsers += daily.getNewUsers();
+        }
 
-        //已完成
-        map.put("status", Orders.COMPLETED);
-        Integer completedOrders = orderMapper.countByMap(map);
+        Double unitPrice = 0.0;
+        Double orderCompletionRate = 0.0;
+        if (totalOrderCount != 0 && validOrderCount != 0) {
+            //订单完成率
+            orderCompletionRate = (double) validOrderCount / totalOrderCount;
+            //平均客单价
+            unitPrice = turnover.doubleValue() / validOrderCount;
+        }
 
-        //已取消
-        map.put("status", Orders.CANCELLED);
-        Integer cancelledOrders = orderMapper.countByMap(map);
+        return BusinessDataVO.builder()
+                .turnover(turnover.doubleValue())
+                .validOrderCount(validOrderCount)
+                .orderCompletionRate(orderCompletionRate)
+                .unitPrice(unitPrice)
+                .newUsers(newUsers)
+                .build();
+    }
 
-        //全部订单
-        map.put("status", null);
-        Integer allOrders = orderMapper.countByMap(map);
+    /**
+     * 查询订单管理数据
+     *
+     * @return
+     */
+    public OrderOverViewVO getOrderOverView() {
+        //一次条件聚合查询得到今日各状态的订单数
+        DailyShopMetrics orders = dailyShopMetricsMapper.sumOrders(LocalDateTime.now().with(LocalTime.MIN), null);
 
         return OrderOverViewVO.builder()
-                .waitingOrders(waitingOrders)
-                .deliveredOrders(deliveredOrders)
-                .completedOrders(completedOrders)
-                .cancelledOrders(cancelledOrders)
-                .allOrders(allOrders)
+                //待接单
+                .waitingOrders(orders.getToBeConfirmedOrders())
+                //待派送
+                .deliveredOrders(orders.getConfirmedOrders())
+                //已完成
+                .completedOrders(orders.getCompletedOrders())
+                //已取消
+                .cancelledOrders(orders.getCancelledOrders())
+                //全部订单
+                .allOrders(orders.getTotalOrders())
                 .build();
     }
 
@@ -128,12 +152,9 @@ public class WorkspaceServiceImpl implements WorkspaceService {
      * @return
      */
     public DishOverViewVO getDishOverView() {
-        Map map = new HashMap();
-        map.put("status", StatusConstant.ENABLE);
-        Integer sold = dishMapper.countByMap(map);
-
-        map.put("status", StatusConstant.DISABLE);
-        Integer discontinued = dishMapper.countByMap(map);
+        Map<Integer, Integer> counts = menuCountService.countDishGroupByStatus();
+        Integer sold = counts.getOrDefault(StatusConstant.ENABLE, 0);
+        Integer discontinued = counts.getOrDefault(StatusConstant.DISABLE, 0);
 
         return DishOverViewVO.builder()
                 .sold(sold)
@@ -147,16 +168,56 @@ public class WorkspaceServiceImpl implements WorkspaceService {
      * @return
      */
     public SetmealOverViewVO getSetmealOverView() {
-        Map map = new HashMap();
-        map.put("status", StatusConstant.ENABLE);
-        Integer sold = setmealMapper.countByMap(map);
-
-        map.put("status", StatusConstant.DISABLE);
-        Integer discontinued = setmealMapper.countByMap(map);
+        Map<Integer, Integer> counts = menuCountService.countSetmealGroupByStatus();
+        Integer sold = counts.getOrDefault(StatusConstant.ENABLE, 0);
+        Integer discontinued = counts.getOrDefault(StatusConstant.DISABLE, 0);
 
         return SetmealOverViewVO.builder()
                 .sold(sold)
                 .discontinued(discontinued)
                 .build();
     }
+
+    /**
+     * 查询工作台全部数据，今日营业数据、订单、菜品、套餐总览在线程池中并行查询
+     *
+     * @return
+     */
+    public DashboardVO getDashboard() {
+        LocalDateTime begin = LocalDateTime.now().with(LocalTime.MIN);
+        LocalDateTime end = LocalDateTime.now().with(LocalTime.MAX);
+
+        CompletableFuture<BusinessDataVO> businessData =
+                CompletableFuture.supplyAsync(() -> getBusinessData(begin, end), dashboardExecutor);
+        CompletableFuture<OrderOverViewVO> orderOverView =
+                CompletableFuture.supplyAsync(this::getOrderOverView, dashboardExecutor);
+        CompletableFuture<DishOverViewVO> dishOverView =
+                CompletableFuture.supplyAsync(this::getDishOverView, dashboardExecutor);
+        CompletableFuture<SetmealOverViewVO> setmealOverView =
+                CompletableFuture.supplyAsync(this::getSetmealOverView, dashboardExecutor);
+
+        return DashboardVO.builder()
+                .businessData(join(businessData))
+                .orderOverView(join(orderOverView))
+                .dishOverView(join(dishOverView))
+                .setmealOverView(join(setmealOverView))
+                .build();
+    }
+
+    /**
+     * 等待查询结果，查询失败时抛出原始异常
+     *
+     * @param future
+     * @return
+     */
+    private <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
 }
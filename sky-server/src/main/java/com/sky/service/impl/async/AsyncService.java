@@ -1,8 +1,12 @@
 // AsyncService.java - 核心异步服务
 package com.sky.service.impl.async;
 
+import com.sky.entity.AddressBook;
 import com.sky.entity.Orders;
 import com.sky.mapper.*;
+import com.sky.service.DishService;
+import com.sky.service.MenuCacheService;
+import com.sky.service.impl.DeliveryRangeService;
 import com.sky.utils.WeChatPayUtil;
 import com.sky.websocket.WebSocketServer;
 import lombok.RequiredArgsConstructor;
@@ -36,6 +40,11 @@ public class AsyncService {
 
     private final UserMapper userMapper;
 
+    private final DeliveryRangeService deliveryRangeService;
+
+    private final DishService dishService;
+
+    private final MenuCacheService menuCacheService;
 
 
     /**
@@ -54,4 +63,24 @@ public class AsyncService {
         }
     }
 
-}
\ No newline at end of file
+    /**
+     * 异步预热收货地址的配送距离缓存
+     */
+    @Async("taskExecutor")
+    public void preloadDeliveryRange(Long addressBookId) {
+        AddressBook addressBook = addressBookMapper.getById(addressBookId);
+        if (addressBook != null) {
+            deliveryRangeService.preload(addressBook);
+        }
+    }
+
+    /**
+     * 菜品缓存清理后异步预热，一次查询出所有起售菜品和口味，重建各分类的菜品列表缓存
+     */
+    @Async("taskExecutor")
+    public void warmUpDishCache() {
+        int count = menuCacheService.warmDishLists(dishService::listEnabledWithFlavorGroupByCategory);
+        log.info("预热菜品列表缓存：{}个分类", count);
+    }
+
+}
@@ -0,0 +1,49 @@
+package com.sky.task;
+
+import com.sky.properties.MetricsProperties;
+import com.sky.service.impl.DailyMetricsService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+
+/**
+ * 定时汇总每日营业数据
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class MetricsTask {
+
+    private final DailyMetricsService dailyMetricsService;
+
+    private final MetricsProperties metricsProperties;
+
+    //上次汇总当天数据的日期
+    private LocalDate lastRefreshDate;
+
+    /**
+     * 汇总已结束的日期，在凌晨1点处理派送中订单之后执行，并重新汇总最近几天
+     */
+    @Scheduled(cron = "0 0 2 * * ?")//每天凌晨2点执行
+    public void closeDays() {
+        LocalDate yesterday = LocalDate.now().minusDays(1);
+        LocalDate begin = yesterday.minusDays(Math.max(metricsProperties.getCloseLookbackDays() - 1, 0));
+        log.info("汇总每日营业数据：{}至{}", begin, yesterday);
+        dailyMetricsService.rollup(begin, yesterday);
+    }
+
+    /**
+     * 汇总当天的数据，日期变化后（包括启动后第一次执行）同时重新汇总前一天，
+     * 前一天最后一次汇总之后的订单不必等到凌晨2点才计入汇总表
+     */
+    @Scheduled(fixedDelayString = "#{@metricsProperties.todayRefreshSeconds * 1000}")
+    public void refreshToday() {
+        LocalDate today = LocalDate.now();
+        LocalDate begin = today.equals(lastRefreshDate) ? today : today.minusDays(1);
+        dailyMetricsService.rollup(begin, today);
+        lastRefreshDate = today;
+    }
+}
@@ -3,6 +3,9 @@ package com.sky.task;
 
 import com.sky.entity.Orders;
 import com.sky.mapper.OrderMapper;
+import com.sky.properties.OrderTimeoutProperties;
+import com.sky.service.impl.OrderTimeoutService;
+import com.sky.service.impl.OrderTransitionService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.scheduling.annotation.Scheduled;
@@ -18,24 +21,45 @@ public class OrderTask {
 
     private final OrderMapper orderMapper;
 
+    private final OrderTimeoutService orderTimeoutService;
+
+    private final OrderTransitionService orderTransitionService;
+
+    private final OrderTimeoutProperties orderTimeoutProperties;
+
     /**
-     * 处理超时订单
+     * 取消到达支付截止时间的订单
      */
-    @Scheduled(cron = "0 * * * * ?")//每分钟的第0秒执行
+    @Scheduled(fixedDelay = 1000)//上次执行完成1秒后再次执行
+    public void processDueTimeoutOrder() {
+        int count = orderTimeoutService.processDue();
+        if (count > 0) {
+            log.info("取消超时订单：{}条", count);
+        }
+    }
+
+    /**
+     * 兜底处理超时订单：未登记到Redis或取出后取消失败的订单
+     */
+    @Scheduled(cron = "0 0/5 * * * ?")//每5分钟执行一次
     public void processTimeoutOrder() {
         log.info("处理超时订单:{}", LocalDateTime.now());
-        LocalDateTime orderTime = LocalDateTime.now().minusMinutes(15);
-        List<Orders> ordersList = orderMapper.getByStatusAndOrderTimeLT(Orders.PENDING_PAYMENT, orderTime);
-        if (ordersList != null && !ordersList.isEmpty()) {
-            ordersList.forEach(order -> {
-                order.setStatus(Orders.CANCELLED);
-                order.setCancelReason("订单超时未支付");
-                order.setCancelTime(LocalDateTime.now());
-                orderMapper.update(order);
-            });
+        LocalDateTime orderTime = LocalDateTime.now().minusMinutes(orderTimeoutProperties.getPaymentMinutes());
+        int batchSize = orderTimeoutProperties.getBatchSize();
+        int count = 0;
+        long lastId = 0;
+        List<Long> ids;
+        do {
+            ids = orderMapper.getIdsByStatusAndOrderTimeLT(Orders.PENDING_PAYMENT, orderTime, lastId, batchSize);
+            if (ids.isEmpty()) {
+                break;
+            }
+            count += orderTimeoutService.cancelTimeoutOrders(ids);
+            lastId = ids.get(ids.size() - 1);
+        } while (ids.size() == batchSize);
+        if (count > 0) {
+            log.info("兜底取消超时订单：{}条", count);
         }
-
-
     }
 
     /**
@@ -44,13 +68,19 @@ public class OrderTask {
     @Scheduled(cron = "0 0 1 * * ?")//每天凌晨1点执行
     public void processDeliverdOrder() {
         log.info("处理已发货订单:{}", LocalDateTime.now());
-        LocalDateTime orderTime = LocalDateTime.now().minusMinutes(60);
-        List<Orders> ordersList = orderMapper.getByStatusAndOrderTimeLT(Orders.DELIVERY_IN_PROGRESS, orderTime);
-        if (ordersList != null && !ordersList.isEmpty()) {
-            ordersList.forEach(order -> {
-                order.setStatus(Orders.COMPLETED);
-                orderMapper.update(order);
-            });
-        }
+        LocalDateTime orderTime = LocalDateTime.now().minusMinutes(orderTimeoutProperties.getDeliveryMinutes());
+        int batchSize = orderTimeoutProperties.getBatchSize();
+        int count = 0;
+        long lastId = 0;
+        List<Long> ids;
+        do {
+            ids = orderMapper.getIdsByStatusAndOrderTimeLT(Orders.DELIVERY_IN_PROGRESS, orderTime, lastId, batchSize);
+            if (ids.isEmpty()) {
+                break;
+            }
+            count += orderTransitionService.transition(ids, Orders.DELIVERY_IN_PROGRESS, Orders.COMPLETED);
+            lastId = ids.get(ids.size() - 1);
+        } while (ids.size() == batchSize);
+        log.info("自动完成派送中订单：{}条", count);
     }
-}
\ No newline at end of file
+}
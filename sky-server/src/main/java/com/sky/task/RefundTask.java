@@ -0,0 +1,32 @@
+package com.sky.task;
+
+import com.sky.properties.RefundProperties;
+import com.sky.service.RefundService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class RefundTask {
+
+    private final RefundService refundService;
+
+    private final RefundProperties refundProperties;
+
+    /**
+     * 处理待退款任务，每批领取满额时继续领取下一批，直到没有到期任务
+     */
+    @Scheduled(fixedDelay = 2000)//上次执行完成2秒后再次执行
+    public void processRefund() {
+        int count;
+        do {
+            count = refundService.processDueRefunds();
+            if (count > 0) {
+                log.info("处理退款任务：{}条", count);
+            }
+        } while (count >= refundProperties.getBatchSize());
+    }
+}
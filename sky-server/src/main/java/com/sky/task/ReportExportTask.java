@@ -0,0 +1,21 @@
+package com.sky.task;
+
+import com.sky.service.ReportExportService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * 定时清理过期的报表导出任务
+ */
+@Component
+@RequiredArgsConstructor
+public class ReportExportTask {
+
+    private final ReportExportService reportExportService;
+
+    @Scheduled(fixedDelayString = "#{@reportExportProperties.cleanupSeconds * 1000}")
+    public void cleanExpired() {
+        reportExportService.cleanExpired();
+    }
+}
@@ -0,0 +1,136 @@
+package com.sky.benchmark;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import org.apache.ibatis.builder.xml.XMLMapperBuilder;
+import org.apache.ibatis.datasource.pooled.PooledDataSource;
+import org.apache.ibatis.executor.statement.StatementHandler;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.jdbc.ScriptRunner;
+import org.apache.ibatis.mapping.Environment;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Signature;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.LocalCacheScope;
+import org.apache.ibatis.session.ResultHandler;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.apache.ibatis.transaction.jdbc.JdbcTransactionFactory;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 基准测试使用的内存数据库
+ * H2以MySQL兼容模式执行src/main/resources/mapper下的映射文件。H2在进程内执行，没有网络往返，
+ * 可以通过roundTripMicros给每条SQL加上固定的等待时间，模拟应用与MySQL之间的网络往返
+ */
+public class BenchmarkDatabase {
+
+    private static final String SCHEMA = "benchmark/schema.sql";
+
+    private final PooledDataSource dataSource;
+
+    private final SqlSessionFactory sqlSessionFactory;
+
+    /**
+     * 创建一个新的空数据库并加载映射文件
+     *
+     * @param mappers 映射文件名，例如OrderMapper.xml
+     */
+    public BenchmarkDatabase(String... mappers) throws IOException, SQLException {
+        this(0, mappers);
+    }
+
+    /**
+     * 创建一个新的空数据库并加载映射文件
+     *
+     * @param roundTripMicros 每条SQL额外等待的时间，单位 微秒
+     * @param mappers         映射文件名，例如OrderMapper.xml
+     */
+    public BenchmarkDatabase(long roundTripMicros, String... mappers) throws IOException, SQLException {
+        //逐条输出SQL日志的开销会掩盖SQL本身的耗时
+        ((Logger) LoggerFactory.getLogger(Logger.ROOT_LOGGER_NAME)).setLevel(Level.INFO);
+
+        //user是H2的关键字，需要按普通标识符处理
+        dataSource = new PooledDataSource("org.h2.Driver",
+                "jdbc:h2:mem:" + UUID.randomUUID() + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;NON_KEYWORDS=USER,VALUE;DB_CLOSE_DELAY=-1",
+                "sa", "");
+
+        try (Connection connection = dataSource.getConnection(); Reader reader = Resources.getResourceAsReader(SCHEMA)) {
+            ScriptRunner runner = new ScriptRunner(connection);
+            runner.setLogWriter(null);
+            runner.setStopOnError(true);
+            runner.runScript(reader);
+        }
+
+        //与application.yml中的mybatis配置一致
+        Configuration configuration = new Configuration(new Environment("benchmark", new JdbcTransactionFactory(), dataSource));
+        configuration.setMapUnderscoreToCamelCase(true);
+        configuration.getTypeAliasRegistry().registerAliases("com.sky.entity");
+        //线上每次调用mapper使用新的SqlSession，基准测试复用会话时不能命中一级缓存
+        configuration.setLocalCacheScope(LocalCacheScope.STATEMENT);
+        if (roundTripMicros > 0) {
+            configuration.addInterceptor(new RoundTrip(roundTripMicros));
+        }
+        for (String mapper : mappers) {
+            String resource = "mapper/" + mapper;
+            try (InputStream in = Resources.getResourceAsStream(resource)) {
+                new XMLMapperBuilder(in, configuration, resource, configuration.getSqlFragments()).parse();
+            }
+        }
+        sqlSessionFactory = new SqlSessionFactoryBuilder().build(configuration);
+    }
+
+    /**
+     * 打开自动提交的会话，每条SQL单独提交，与线上未开启事务时一致
+     *
+     * @return
+     */
+    public SqlSession openSession() {
+        return sqlSessionFactory.openSession(true);
+    }
+
+    public void close() throws SQLException {
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("shutdown");
+        }
+        dataSource.forceCloseAll();
+    }
+
+    /**
+     * 每执行一条SQL等待固定的时间
+     */
+    @Intercepts({
+            @Signature(type = StatementHandler.class, method = "update", args = Statement.class),
+            @Signature(type = StatementHandler.class, method = "query", args = {Statement.class, ResultHandler.class})
+    })
+    private static class RoundTrip implements Interceptor {
+
+        private final long nanos;
+
+        RoundTrip(long roundTripMicros) {
+            this.nanos = TimeUnit.MICROSECONDS.toNanos(roundTripMicros);
+        }
+
+        @Override
+        public Object intercept(Invocation invocation) throws Throwable {
+            //忙等待，parkNanos在微秒级的误差太大
+            long deadline = System.nanoTime() + nanos;
+            while (System.nanoTime() < deadline) {
+                Thread.yield();
+            }
+            return invocation.proceed();
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.sky.benchmark;
+
+import com.sky.entity.Orders;
+import com.sky.mapper.OrderMapper;
+import com.sky.properties.OrderTimeoutProperties;
+import com.sky.properties.OrderTransitionProperties;
+import com.sky.service.impl.OrderTimeoutService;
+import com.sky.service.impl.OrderTransitionService;
+import com.sky.task.OrderTask;
+import org.apache.ibatis.session.SqlSession;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.math.BigDecimal;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 取消10000条超时未支付订单：原来逐条update，对比OrderTask兜底扫描按id分批、每批一条语句修改
+ * roundTripMicros为模拟的每条SQL的网络往返时间，0表示只比较数据库内的执行时间
+ * 运行：在IDE中执行main方法
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class OrderTransitionBenchmark {
+
+    private static final int ORDERS = 10000;
+
+    @Param({"0", "200"})
+    private long roundTripMicros;
+
+    private BenchmarkDatabase database;
+
+    private SqlSession sqlSession;
+
+    private OrderMapper orderMapper;
+
+    private OrderTask orderTask;
+
+    @Setup
+    public void setUp() throws Exception {
+        database = new BenchmarkDatabase(roundTripMicros, "OrderMapper.xml");
+        sqlSession = database.openSession();
+        orderMapper = sqlSession.getMapper(OrderMapper.class);
+
+        LocalDateTime orderTime = LocalDateTime.now().minusHours(1);
+        for (int i = 0; i < ORDERS; i++) {
+            orderMapper.insert(Orders.builder()
+                    .number(String.valueOf(i))
+                    .status(Orders.PENDING_PAYMENT)
+                    .userId(1L)
+                    .addressBookId(1L)
+                    .orderTime(orderTime)
+                    .payMethod(1)
+                    .payStatus(Orders.UN_PAID)
+                    .amount(BigDecimal.TEN)
+                    .deliveryStatus(1)
+                    .tablewareStatus(1)
+                    .build());
+        }
+
+        OrderTimeoutProperties orderTimeoutProperties = new OrderTimeoutProperties();
+        OrderTransitionService orderTransitionService = new OrderTransitionService(orderMapper, new OrderTransitionProperties());
+        //兜底扫描不使用Redis
+        OrderTimeoutService orderTimeoutService = new OrderTimeoutService(null, orderTransitionService, orderTimeoutProperties);
+        orderTask = new OrderTask(orderMapper, orderTimeoutService, orderTransitionService, orderTimeoutProperties);
+    }
+
+    @Setup(Level.Invocation)
+    public void resetOrders() throws Exception {
+        try (Statement statement = sqlSession.getConnection().createStatement()) {
+            statement.executeUpdate("update orders set status = " + Orders.PENDING_PAYMENT + ", cancel_reason = null, cancel_time = null");
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        sqlSession.close();
+        database.close();
+    }
+
+    /**
+     * 原来的实现：查询所有超时订单，逐条update
+     */
+    @Benchmark
+    public int rowByRow() {
+        List<Orders> ordersList = orderMapper.getByStatusAndOrderTimeLT(Orders.PENDING_PAYMENT, LocalDateTime.now().minusMinutes(15));
+        for (Orders orders : ordersList) {
+            orders.setStatus(Orders.CANCELLED);
+            orders.setCancelReason(OrderTimeoutService.TIMEOUT_CANCEL_REASON);
+            orders.setCancelTime(LocalDateTime.now());
+            orderMapper.update(orders);
+        }
+        return ordersList.size();
+    }
+
+    @Benchmark
+    public void batched() {
+        orderTask.processTimeoutOrder();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(OrderTransitionBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
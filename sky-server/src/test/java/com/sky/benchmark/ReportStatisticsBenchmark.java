@@ -0,0 +1,214 @@
+package com.sky.benchmark;
+
+import com.sky.entity.Orders;
+import com.sky.mapper.DailyShopMetricsMapper;
+import com.sky.mapper.OrderMapper;
+import com.sky.mapper.UserMapper;
+import com.sky.properties.MetricsProperties;
+import com.sky.service.impl.DailyMetricsService;
+import com.sky.service.impl.ReportServiceImpl;
+import com.sky.vo.OrderReportVO;
+import com.sky.vo.TurnoverReportVO;
+import com.sky.vo.UserReportVO;
+import org.apache.commons.lang.StringUtils;
+import org.apache.ibatis.session.SqlSession;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 365天的营业额、用户、订单统计：原来每天5条查询，对比按日期GROUP BY一次汇总、从每日汇总表读取
+ * roundTripMicros为模拟的每条SQL的网络往返时间，0表示只比较数据库内的执行时间
+ * 运行：在IDE中执行main方法
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReportStatisticsBenchmark {
+
+    private static final int DAYS = 365;
+    private static final int ORDERS_PER_DAY = 30;
+    private static final int USERS_PER_DAY = 5;
+
+    @Param({"0", "200"})
+    private long roundTripMicros;
+
+    private BenchmarkDatabase database;
+
+    private SqlSession sqlSession;
+
+    private OrderMapper orderMapper;
+
+    private UserMapper userMapper;
+
+    private DailyMetricsService dailyMetricsService;
+
+    private ReportServiceImpl reportService;
+
+    //统计到昨天，只包含已结束的日期
+    private final LocalDate end = LocalDate.now().minusDays(1);
+    private final LocalDate begin = end.minusDays(DAYS - 1);
+
+    @Setup
+    public void setUp() throws Exception {
+        database = new BenchmarkDatabase(roundTripMicros, "OrderMapper.xml", "UserMapper.xml", "DailyShopMetricsMapper.xml");
+        sqlSession = database.openSession();
+        orderMapper = sqlSession.getMapper(OrderMapper.class);
+        userMapper = sqlSession.getMapper(UserMapper.class);
+        dailyMetricsService = new DailyMetricsService(sqlSession.getMapper(DailyShopMetricsMapper.class), userMapper, new MetricsProperties());
+        reportService = new ReportServiceImpl(orderMapper, userMapper, dailyMetricsService, null, null);
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        try (PreparedStatement orders = sqlSession.getConnection().prepareStatement(
+                "insert into orders(status, user_id, address_book_id, order_time, amount) values (?, 1, 1, ?, ?)");
+             PreparedStatement users = sqlSession.getConnection().prepareStatement(
+                     "insert into user(openid, create_time) values (?, ?)")) {
+            for (LocalDate date = begin.minusDays(30); !date.isAfter(end); date = date.plusDays(1)) {
+                for (int i = 0; i < ORDERS_PER_DAY; i++) {
+                    orders.setInt(1, random.nextInt(Orders.PENDING_PAYMENT, Orders.CANCELLED + 1));
+                    orders.setTimestamp(2, Timestamp.valueOf(date.atTime(LocalTime.ofSecondOfDay(random.nextInt(86400)))));
+                    orders.setBigDecimal(3, BigDecimal.valueOf(random.nextInt(1000, 20000), 2));
+                    orders.addBatch();
+                }
+                for (int i = 0; i < USERS_PER_DAY; i++) {
+                    users.setString(1, date + "-" + i);
+                    users.setTimestamp(2, Timestamp.valueOf(date.atTime(LocalTime.ofSecondOfDay(random.nextInt(86400)))));
+                    users.addBatch();
+                }
+            }
+            orders.executeBatch();
+            users.executeBatch();
+        }
+
+        //汇总表中已有全部日期，summaryTable只读取汇总表
+        dailyMetricsService.rollup(begin, end);
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        sqlSession.close();
+        database.close();
+    }
+
+    /**
+     * 原来的实现：每天查询营业额1次、订单数2次、用户数2次
+     */
+    @Benchmark
+    public void perDay(Blackhole blackhole) {
+        List<LocalDate> dateList = new ArrayList<>();
+        for (LocalDate date = begin; !date.isAfter(end); date = date.plusDays(1)) {
+            dateList.add(date);
+        }
+
+        List<Double> turnoverList = new ArrayList<>();
+        List<Integer> totalUserList = new ArrayList<>();
+        List<Integer> newUserList = new ArrayList<>();
+        List<Integer> orderCountList = new ArrayList<>();
+        List<Integer> validOrderCountList = new ArrayList<>();
+        for (LocalDate date : dateList) {
+            LocalDateTime beginTime = LocalDateTime.of(date, LocalTime.MIN);
+            LocalDateTime endTime = LocalDateTime.of(date, LocalTime.MAX);
+
+            Map map = new HashMap();
+            map.put("begin", beginTime);
+            map.put("end", endTime);
+            map.put("status", Orders.COMPLETED);
+            Double turnover = orderMapper.sumByMap(map);
+            turnoverList.add(turnover == null ? 0.0 : turnover);
+
+            map = new HashMap();
+            map.put("end", endTime);
+            Integer totalUser = userMapper.countByMap(map);
+            map.put("begin", beginTime);
+            Integer newUser = userMapper.countByMap(map);
+            totalUserList.add(totalUser == null ? 0 : totalUser);
+            newUserList.add(newUser == null ? 0 : newUser);
+
+            orderCountList.add(countOrders(null, beginTime, endTime));
+            validOrderCountList.add(countOrders(Orders.COMPLETED, beginTime, endTime));
+        }
+
+        String dateListStr = StringUtils.join(dateList, ",");
+        blackhole.consume(TurnoverReportVO.builder()
+                .dateList(dateListStr)
+                .turnoverList(StringUtils.join(turnoverList, ","))
+                .build());
+        blackhole.consume(UserReportVO.builder()
+                .dateList(dateListStr)
+                .totalUserList(StringUtils.join(totalUserList, ","))
+                .newUserList(StringUtils.join(newUserList, ","))
+                .build());
+        int totalOrderCount = orderCountList.stream().reduce(Integer::sum).get();
+        int validOrderCount = validOrderCountList.stream().reduce(Integer::sum).get();
+        blackhole.consume(OrderReportVO.builder()
+                .dateList(dateListStr)
+                .orderCountList(StringUtils.join(orderCountList, ","))
+                .validOrderCountList(StringUtils.join(validOrderCountList, ","))
+                .totalOrderCount(totalOrderCount)
+                .validOrderCount(validOrderCount)
+                .orderCompletionRate(totalOrderCount == 0 ? 0.0 : (double) validOrderCount / totalOrderCount)
+                .build());
+    }
+
+    /**
+     * 汇总表中没有数据时：按日期GROUP BY汇总订单和用户，写入汇总表
+     */
+    @Benchmark
+    public int groupBy() {
+        return dailyMetricsService.rollup(begin, end).size();
+    }
+
+    /**
+     * 当前的实现：三个统计各读取一次汇总表
+     */
+    @Benchmark
+    public void summaryTable(Blackhole blackhole) {
+        blackhole.consume(reportService.getTurnoverStatistics(begin, end));
+        blackhole.consume(reportService.getUserStatistics(begin, end));
+        blackhole.consume(reportService.getOrderStatistics(begin, end));
+    }
+
+    private Integer countOrders(Integer status, LocalDateTime begin, LocalDateTime end) {
+        Map map = new HashMap();
+        map.put("begin", begin);
+        map.put("end", end);
+        map.put("status", status);
+        Integer orderCount = orderMapper.countByMap(map);
+        return orderCount == null ? 0 : orderCount;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ReportStatisticsBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
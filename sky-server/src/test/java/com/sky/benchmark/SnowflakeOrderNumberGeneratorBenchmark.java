@@ -0,0 +1,78 @@
+package com.sky.benchmark;
+
+import com.sky.properties.OrderNumberProperties;
+import com.sky.service.impl.SnowflakeOrderNumberGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 订单号生成吞吐量，对比原来的System.currentTimeMillis()
+ * 运行：在IDE中执行main方法
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SnowflakeOrderNumberGeneratorBenchmark {
+
+    private SnowflakeOrderNumberGenerator generator;
+
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        StringRedisTemplate redisTemplate = mock(StringRedisTemplate.class);
+        ValueOperations<String, String> valueOperations = mock(ValueOperations.class);
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.setIfAbsent(anyString(), anyString(), any(Duration.class))).thenReturn(true);
+        generator = new SnowflakeOrderNumberGenerator(redisTemplate, new OrderNumberProperties());
+        generator.init();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public String snowflakeSingleThread() {
+        return generator.nextNumber();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public String snowflakeEightThreads() {
+        return generator.nextNumber();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public String currentTimeMillis() {
+        return String.valueOf(System.currentTimeMillis());
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(SnowflakeOrderNumberGeneratorBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
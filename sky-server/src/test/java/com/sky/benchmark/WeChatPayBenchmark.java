@@ -0,0 +1,146 @@
+package com.sky.benchmark;
+
+import com.sky.properties.WeChatProperties;
+import com.sky.utils.WeChatPayUtil;
+import com.sun.net.httpserver.HttpServer;
+import com.wechat.pay.contrib.apache.httpclient.WechatPayHttpClientBuilder;
+import com.wechat.pay.contrib.apache.httpclient.util.PemUtil;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.entity.StringEntity;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.util.EntityUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.cert.X509Certificate;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 调用本地模拟的支付接口：WeChatPayUtil复用客户端和连接，对比原来每次重新加载证书、创建客户端
+ * 运行：在IDE中执行main方法
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Dsun.net.httpserver.nodelay=true")
+public class WeChatPayBenchmark {
+
+    private static final String RESPONSE = "{\"status\":\"PROCESSING\"}";
+
+    private Path tempDir;
+
+    private HttpServer server;
+
+    private String url;
+
+    private WeChatProperties weChatProperties;
+
+    private WeChatPayUtil weChatPayUtil;
+
+    @Setup
+    public void setUp() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/v3/refund/domestic/refunds", exchange -> {
+            try (InputStream in = exchange.getRequestBody()) {
+                while (in.read() != -1) {
+                    //读完请求体，连接才能复用
+                }
+            }
+            byte[] body = RESPONSE.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+        url = "http://127.0.0.1:" + server.getAddress().getPort() + "/v3/refund/domestic/refunds";
+
+        tempDir = Files.createTempDirectory("wechatpay");
+        weChatProperties = new WeChatProperties();
+        weChatProperties.setMchid("1900000000");
+        weChatProperties.setMchSerialNo("TEST");
+        weChatProperties.setPrivateKeyFilePath(copy("wechatpay/apiclient_key.pem").toString());
+        weChatProperties.setWeChatPayCertFilePath(copy("wechatpay/platform_cert.pem").toString());
+
+        weChatPayUtil = new WeChatPayUtil();
+        ReflectionTestUtils.setField(weChatPayUtil, "weChatProperties", weChatProperties);
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        weChatPayUtil.destroy();
+        server.stop(0);
+        FileSystemUtils.deleteRecursively(tempDir);
+    }
+
+    /**
+     * 当前的实现：复用客户端和连接池
+     */
+    @Benchmark
+    public String pooled() {
+        return ReflectionTestUtils.invokeMethod(weChatPayUtil, "post", url, "{}");
+    }
+
+    /**
+     * 原来的实现：每次请求重新读取私钥和证书，创建客户端，请求后关闭
+     */
+    @Benchmark
+    public String perRequestClient() throws Exception {
+        X509Certificate certificate;
+        try (FileInputStream certIn = new FileInputStream(weChatProperties.getWeChatPayCertFilePath())) {
+            certificate = PemUtil.loadCertificate(certIn);
+        }
+        try (FileInputStream keyIn = new FileInputStream(weChatProperties.getPrivateKeyFilePath());
+             CloseableHttpClient client = WechatPayHttpClientBuilder.create()
+                     .withMerchant(weChatProperties.getMchid(), weChatProperties.getMchSerialNo(), PemUtil.loadPrivateKey(keyIn))
+                     .withWechatPay(Collections.singletonList(certificate))
+                     .build()) {
+            HttpPost httpPost = new HttpPost(url);
+            httpPost.setEntity(new StringEntity("{}", "UTF-8"));
+            try (CloseableHttpResponse response = client.execute(httpPost)) {
+                return EntityUtils.toString(response.getEntity());
+            }
+        }
+    }
+
+    private Path copy(String resource) throws Exception {
+        Path target = tempDir.resolve(resource.substring(resource.lastIndexOf('/') + 1));
+        try (InputStream in = new ClassPathResource(resource).getInputStream()) {
+            Files.copy(in, target);
+        }
+        return target;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(WeChatPayBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
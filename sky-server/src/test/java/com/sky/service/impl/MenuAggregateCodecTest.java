@@ -0,0 +1,138 @@
+package com.sky.service.impl;
+
+import com.sky.entity.DishFlavor;
+import com.sky.entity.SetmealDish;
+import com.sky.vo.DishVO;
+import com.sky.vo.SetmealVO;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * 菜品、套餐详情二进制编码的往返测试
+ * 通过反射给每个字段赋值，实体类新增字段而编码没有同步修改时，解码结果与原对象不相等
+ */
+class MenuAggregateCodecTest {
+
+    private static final long EXPIRE_AT = 1_700_000_000_123L;
+
+    @Test
+    void dishRoundTripKeepsEveryField() {
+        DishVO dishVO = fill(new DishVO(), 1);
+        dishVO.setFlavors(Arrays.asList(fill(new DishFlavor(), 10), fill(new DishFlavor(), 20)));
+
+        byte[] bytes = MenuAggregateCodec.encodeDish(dishVO, EXPIRE_AT);
+
+        assertTrue(MenuAggregateCodec.isSupported(bytes));
+        assertFalse(MenuAggregateCodec.isNull(bytes));
+        assertEquals(EXPIRE_AT, MenuAggregateCodec.expireAt(bytes));
+        assertEquals(dishVO, MenuAggregateCodec.decodeDish(bytes));
+    }
+
+    @Test
+    void setmealRoundTripKeepsEveryField() {
+        SetmealVO setmealVO = fill(new SetmealVO(), 1);
+        setmealVO.setSetmealDishes(Arrays.asList(fill(new SetmealDish(), 10), fill(new SetmealDish(), 20)));
+
+        byte[] bytes = MenuAggregateCodec.encodeSetmeal(setmealVO, EXPIRE_AT);
+
+        assertTrue(MenuAggregateCodec.isSupported(bytes));
+        assertEquals(EXPIRE_AT, MenuAggregateCodec.expireAt(bytes));
+        assertEquals(setmealVO, MenuAggregateCodec.decodeSetmeal(bytes));
+    }
+
+    @Test
+    void nullFieldsAndListsRoundTrip() {
+        //BigDecimal、LocalDateTime等字段为null，口味列表为null
+        DishVO dishVO = DishVO.builder().id(1L).name("宫保鸡丁").build();
+        assertNull(dishVO.getFlavors());
+        assertEquals(dishVO, MenuAggregateCodec.decodeDish(MenuAggregateCodec.encodeDish(dishVO, EXPIRE_AT)));
+
+        //口味列表为空，口味中的字段为null
+        dishVO.setFlavors(new ArrayList<>());
+        assertEquals(dishVO, MenuAggregateCodec.decodeDish(MenuAggregateCodec.encodeDish(dishVO, EXPIRE_AT)));
+        dishVO.setFlavors(Arrays.asList(new DishFlavor()));
+        assertEquals(dishVO, MenuAggregateCodec.decodeDish(MenuAggregateCodec.encodeDish(dishVO, EXPIRE_AT)));
+
+        SetmealVO setmealVO = SetmealVO.builder().id(2L).setmealDishes(Arrays.asList(new SetmealDish())).build();
+        assertEquals(setmealVO, MenuAggregateCodec.decodeSetmeal(MenuAggregateCodec.encodeSetmeal(setmealVO, EXPIRE_AT)));
+    }
+
+    @Test
+    void nullValueMarker() {
+        byte[] dishBytes = MenuAggregateCodec.encodeDish(null, EXPIRE_AT);
+        byte[] setmealBytes = MenuAggregateCodec.encodeSetmeal(null, EXPIRE_AT);
+
+        assertArrayEquals(MenuAggregateCodec.NULL_VALUE, dishBytes);
+        assertArrayEquals(MenuAggregateCodec.NULL_VALUE, setmealBytes);
+        assertTrue(MenuAggregateCodec.isNull(dishBytes));
+        assertTrue(MenuAggregateCodec.isSupported(dishBytes));
+    }
+
+    @Test
+    void rejectsOtherVersions() {
+        byte[] bytes = MenuAggregateCodec.encodeDish(fill(new DishVO(), 1), EXPIRE_AT);
+
+        byte[] older = bytes.clone();
+        older[0] = (byte) (bytes[0] - 1);
+        assertFalse(MenuAggregateCodec.isSupported(older));
+
+        byte[] newer = bytes.clone();
+        newer[0] = (byte) (bytes[0] + 1);
+        assertFalse(MenuAggregateCodec.isSupported(newer));
+
+        //只有版本号，没有过期时间
+        assertFalse(MenuAggregateCodec.isSupported(new byte[]{bytes[0], 0, 0}));
+    }
+
+    /**
+     * 按字段类型给每个非静态字段赋不同的值，列表字段由调用方设置
+     */
+    private static <T> T fill(T target, int seed) {
+        int n = seed;
+        for (Field field : target.getClass().getDeclaredFields()) {
+            if (Modifier.isStatic(field.getModifiers())) {
+                continue;
+            }
+            Class<?> type = field.getType();
+            Object value;
+            n++;
+            if (type == Long.class) {
+                value = 1000L + n;
+            } else if (type == Integer.class) {
+                value = n;
+            } else if (type == String.class) {
+                value = field.getName() + "-测试-" + n;
+            } else if (type == BigDecimal.class) {
+                value = new BigDecimal("12345.6" + n);
+            } else if (type == LocalDateTime.class) {
+                value = LocalDateTime.of(2024, 5, 6, 7, 8, 9, 123_456_789 + n);
+            } else if (type == List.class) {
+                continue;
+            } else {
+                fail("编码未覆盖的字段类型：" + target.getClass().getSimpleName() + "." + field.getName());
+                return target;
+            }
+            field.setAccessible(true);
+            try {
+                field.set(target, value);
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+        return target;
+    }
+}
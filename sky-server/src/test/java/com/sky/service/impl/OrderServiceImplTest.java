@@ -0,0 +1,145 @@
+package com.sky.service.impl;
+
+import com.github.pagehelper.Page;
+import com.github.pagehelper.PageHelper;
+import com.sky.context.BaseContext;
+import com.sky.dto.OrdersPageQueryDTO;
+import com.sky.entity.OrderDetail;
+import com.sky.entity.Orders;
+import com.sky.mapper.OrderDetailMapper;
+import com.sky.mapper.OrderMapper;
+import com.sky.result.PageResult;
+import com.sky.vo.OrderVO;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * 订单分页查询的SQL次数：一页订单只查询一次订单明细
+ */
+@ExtendWith(MockitoExtension.class)
+class OrderServiceImplTest {
+
+    private static final int PAGE_SIZE = 50;
+
+    @Mock
+    private OrderMapper orderMapper;
+
+    @Mock
+    private OrderDetailMapper orderDetailMapper;
+
+    @InjectMocks
+    private OrderServiceImpl orderService;
+
+    @AfterEach
+    void tearDown() {
+        //mapper是模拟的，PageHelper设置的分页参数不会被消费
+        PageHelper.clearPage();
+        BaseContext.removeCurrentId();
+    }
+
+    @Test
+    void conditionSearchLoadsDetailsOfPageInOneQuery() {
+        Page<Orders> page = page();
+        when(orderMapper.pageQuery(any(OrdersPageQueryDTO.class))).thenReturn(page);
+        when(orderDetailMapper.getByOrderIds(any())).thenReturn(details(page));
+
+        OrdersPageQueryDTO query = new OrdersPageQueryDTO();
+        query.setPage(1);
+        query.setPageSize(PAGE_SIZE);
+        PageResult result = orderService.conditionSearch(query);
+
+        verify(orderMapper, times(1)).pageQuery(query);
+        verifyQueriedDetailsOnce(page);
+        verifyNoMoreInteractions(orderMapper, orderDetailMapper);
+
+        @SuppressWarnings("unchecked")
+        List<OrderVO> records = result.getRecords();
+        assertEquals(PAGE_SIZE, records.size());
+        for (OrderVO orderVO : records) {
+            assertEquals("宫保鸡丁*2;米饭" + orderVO.getId() + "*1;", orderVO.getOrderDishes());
+        }
+    }
+
+    @Test
+    void pageQuery4UserLoadsDetailsOfPageInOneQuery() {
+        BaseContext.setCurrentId(1L);
+        Page<Orders> page = page();
+        when(orderMapper.pageQuery(any(OrdersPageQueryDTO.class))).thenReturn(page);
+        when(orderDetailMapper.getByOrderIds(any())).thenReturn(details(page));
+
+        PageResult result = orderService.pageQuery4User(1, PAGE_SIZE, null);
+
+        verify(orderMapper, times(1)).pageQuery(any(OrdersPageQueryDTO.class));
+        verifyQueriedDetailsOnce(page);
+        verifyNoMoreInteractions(orderMapper, orderDetailMapper);
+
+        @SuppressWarnings("unchecked")
+        List<OrderVO> records = result.getRecords();
+        assertEquals(PAGE_SIZE, records.size());
+        for (OrderVO orderVO : records) {
+            List<OrderDetail> orderDetailList = orderVO.getOrderDetailList();
+            assertEquals(2, orderDetailList.size());
+            for (OrderDetail orderDetail : orderDetailList) {
+                assertEquals(orderVO.getId(), orderDetail.getOrderId());
+            }
+        }
+    }
+
+    @Test
+    void emptyPageDoesNotQueryDetails() {
+        when(orderMapper.pageQuery(any(OrdersPageQueryDTO.class))).thenReturn(new Page<>(1, PAGE_SIZE));
+
+        OrdersPageQueryDTO query = new OrdersPageQueryDTO();
+        query.setPage(1);
+        query.setPageSize(PAGE_SIZE);
+        PageResult result = orderService.conditionSearch(query);
+
+        verify(orderMapper, times(1)).pageQuery(query);
+        verifyNoMoreInteractions(orderMapper, orderDetailMapper);
+        assertEquals(0, result.getRecords().size());
+    }
+
+    private void verifyQueriedDetailsOnce(Page<Orders> page) {
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Long>> orderIds = ArgumentCaptor.forClass(List.class);
+        verify(orderDetailMapper, times(1)).getByOrderIds(orderIds.capture());
+        List<Long> expected = new ArrayList<>();
+        for (Orders orders : page) {
+            expected.add(orders.getId());
+        }
+        assertEquals(expected, orderIds.getValue());
+    }
+
+    private Page<Orders> page() {
+        Page<Orders> page = new Page<>(1, PAGE_SIZE);
+        page.setTotal(PAGE_SIZE * 3);
+        for (long id = 1; id <= PAGE_SIZE; id++) {
+            page.add(Orders.builder().id(id).status(Orders.TO_BE_CONFIRMED).build());
+        }
+        return page;
+    }
+
+    private List<OrderDetail> details(List<Orders> ordersList) {
+        List<OrderDetail> details = new ArrayList<>();
+        for (Orders orders : ordersList) {
+            details.add(OrderDetail.builder().orderId(orders.getId()).name("宫保鸡丁").number(2).build());
+            details.add(OrderDetail.builder().orderId(orders.getId()).name("米饭" + orders.getId()).number(1).build());
+        }
+        return details;
+    }
+}
@@ -0,0 +1,135 @@
+package com.sky.service.impl;
+
+import com.sky.properties.OrderNumberProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class SnowflakeOrderNumberGeneratorTest {
+
+    private static final int THREADS = 8;
+    private static final int IDS_PER_THREAD = 250_000;
+
+    private ValueOperations<String, String> valueOperations;
+
+    private OrderNumberProperties properties;
+
+    private SnowflakeOrderNumberGenerator generator;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        StringRedisTemplate redisTemplate = mock(StringRedisTemplate.class);
+        valueOperations = mock(ValueOperations.class);
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.setIfAbsent(anyString(), anyString(), any(Duration.class))).thenReturn(true);
+
+        properties = new OrderNumberProperties();
+        generator = new SnowflakeOrderNumberGenerator(redisTemplate, properties);
+        generator.init();
+    }
+
+    @Test
+    void idsFromManyThreadsAreUniqueAndIncreasingPerThread() throws Exception {
+        long[][] ids = new long[THREADS][IDS_PER_THREAD];
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            Future<?>[] futures = new Future<?>[THREADS];
+            for (int t = 0; t < THREADS; t++) {
+                long[] threadIds = ids[t];
+                futures[t] = executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < IDS_PER_THREAD; i++) {
+                        threadIds[i] = generator.nextId();
+                    }
+                    return null;
+                });
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        long[] all = new long[THREADS * IDS_PER_THREAD];
+        for (int t = 0; t < THREADS; t++) {
+            for (int i = 1; i < IDS_PER_THREAD; i++) {
+                assertTrue(ids[t][i] > ids[t][i - 1], "同一线程生成的id必须递增");
+            }
+            System.arraycopy(ids[t], 0, all, t * IDS_PER_THREAD, IDS_PER_THREAD);
+        }
+        Arrays.sort(all);
+        for (int i = 1; i < all.length; i++) {
+            assertTrue(all[i] != all[i - 1], "id重复：" + all[i]);
+        }
+    }
+
+    @Test
+    void idContainsLeasedWorkerId() {
+        int workerId = (int) ReflectionTestUtils.getField(generator, "workerId");
+        long id = generator.nextId();
+        assertEquals(workerId, (id >>> 12) & 1023);
+    }
+
+    @Test
+    void rejectsClockMovedBackBeyondLimit() {
+        AtomicLong state = (AtomicLong) ReflectionTestUtils.getField(generator, "state");
+        long future = System.currentTimeMillis() - properties.getEpoch() + properties.getMaxBackwardMillis() + 60_000;
+        state.set(future << 12);
+
+        assertThrows(IllegalStateException.class, generator::nextId);
+    }
+
+    @Test
+    void continuesWithinAllowedClockBackward() {
+        AtomicLong state = (AtomicLong) ReflectionTestUtils.getField(generator, "state");
+        long ahead = System.currentTimeMillis() - properties.getEpoch() + properties.getMaxBackwardMillis() / 2;
+        state.set(ahead << 12);
+
+        long first = generator.nextId();
+        long second = generator.nextId();
+        assertTrue(second > first);
+        assertTrue((first >>> 22) >= ahead, "时钟回拨时沿用上次的时间戳");
+    }
+
+    @Test
+    void waitsForClockWhenBorrowedSequenceIsExhausted() {
+        AtomicLong state = (AtomicLong) ReflectionTestUtils.getField(generator, "state");
+        long ahead = System.currentTimeMillis() - properties.getEpoch() + 20;
+        state.set((ahead << 12) | 4095);
+
+        long id = generator.nextId();
+        assertTrue((id >>> 22) > ahead, "序列号用完后进位到下一毫秒");
+        assertTrue(System.currentTimeMillis() - properties.getEpoch() >= ahead, "等待时钟追上已借用的时间");
+    }
+
+    @Test
+    void failsWhenNoWorkerIdCanBeLeased() {
+        ReflectionTestUtils.setField(generator, "leaseExpireTime", 0L);
+        when(valueOperations.setIfAbsent(anyString(), anyString(), any(Duration.class))).thenReturn(false);
+
+        assertThrows(IllegalStateException.class, generator::nextId);
+    }
+}
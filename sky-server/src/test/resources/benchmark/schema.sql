@@ -0,0 +1,76 @@
+-- 基准测试使用的表结构，只包含基准测试涉及的表，H2以MySQL兼容模式执行
+create table orders
+(
+    id                      bigint auto_increment primary key,
+    number                  varchar(50),
+    status                  int          not null default 1,
+    user_id                 bigint       not null,
+    address_book_id         bigint       not null,
+    order_time              datetime     not null,
+    checkout_time           datetime,
+    pay_method              int          not null default 1,
+    pay_status              tinyint      not null default 0,
+    amount                  decimal(10, 2) not null,
+    remark                  varchar(100),
+    phone                   varchar(11),
+    address                 varchar(255),
+    user_name               varchar(32),
+    consignee               varchar(32),
+    cancel_reason           varchar(255),
+    rejection_reason        varchar(255),
+    cancel_time             datetime,
+    estimated_delivery_time datetime,
+    delivery_status         tinyint      not null default 1,
+    delivery_time           datetime,
+    pack_amount             int,
+    tableware_number        int,
+    tableware_status        tinyint      not null default 1
+);
+-- 与sql/orders_index.sql一致
+create index idx_order_time_id on orders (order_time, id);
+create index idx_user_id_order_time_id on orders (user_id, order_time, id);
+create index idx_number on orders (number);
+create index idx_phone on orders (phone);
+
+create table order_detail
+(
+    id          bigint auto_increment primary key,
+    name        varchar(32),
+    image       varchar(255),
+    order_id    bigint         not null,
+    dish_id     bigint,
+    setmeal_id  bigint,
+    dish_flavor varchar(50),
+    number      int            not null default 1,
+    amount      decimal(10, 2) not null
+);
+create index idx_order_id on order_detail (order_id);
+
+create table user
+(
+    id          bigint auto_increment primary key,
+    openid      varchar(45),
+    name        varchar(32),
+    phone       varchar(11),
+    sex         varchar(2),
+    id_number   varchar(18),
+    avatar      varchar(500),
+    create_time datetime
+);
+create index idx_create_time on user (create_time);
+
+create table daily_shop_metrics
+(
+    metric_date                 date           not null primary key,
+    turnover                    decimal(12, 2) not null default 0,
+    total_orders                int            not null default 0,
+    valid_orders                int            not null default 0,
+    new_users                   int            not null default 0,
+    pending_payment_orders      int            not null default 0,
+    to_be_confirmed_orders      int            not null default 0,
+    confirmed_orders            int            not null default 0,
+    delivery_in_progress_orders int            not null default 0,
+    completed_orders            int            not null default 0,
+    cancelled_orders            int            not null default 0,
+    update_time                 datetime
+);
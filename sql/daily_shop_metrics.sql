@@ -0,0 +1,17 @@
+-- 每日营业数据汇总表
+-- 由 MetricsTask 定时汇总，报表和工作台查询已结束的日期时直接读取，当天的数据实时查询
+create table daily_shop_metrics
+(
+    metric_date                 date           not null primary key comment '日期',
+    turnover                    decimal(12, 2) not null default 0 comment '营业额，已完成订单的金额总和',
+    total_orders                int            not null default 0 comment '订单总数',
+    valid_orders                int            not null default 0 comment '有效订单数，已完成订单的数量',
+    new_users                   int            not null default 0 comment '新增用户数',
+    pending_payment_orders      int            not null default 0 comment '待付款订单数',
+    to_be_confirmed_orders      int            not null default 0 comment '待接单订单数',
+    confirmed_orders            int            not null default 0 comment '已接单订单数',
+    delivery_in_progress_orders int            not null default 0 comment '派送中订单数',
+    completed_orders            int            not null default 0 comment '已完成订单数',
+    cancelled_orders            int            not null default 0 comment '已取消订单数',
+    update_time                 datetime                default null comment '汇总时间'
+) comment '每日营业数据';
@@ -0,0 +1,21 @@
+-- 订单退款任务表（退款发件箱）
+-- 取消/拒单时与订单状态在同一事务中写入，由 RefundTask 异步调用微信退款接口
+create table order_refund
+(
+    id              bigint auto_increment primary key,
+    order_id        bigint         not null comment '订单id',
+    out_trade_no    varchar(50)    not null comment '商户订单号',
+    out_refund_no   varchar(64)    not null comment '商户退款单号',
+    refund_amount   decimal(10, 2) not null comment '退款金额',
+    total_amount    decimal(10, 2) not null comment '原订单金额',
+    status          int            not null default 0 comment '退款状态 0待退款 1退款中 2已退款 3退款失败',
+    retry_count     int            not null default 0 comment '已重试次数',
+    next_retry_time datetime       not null comment '下次执行时间',
+    claim_token     varchar(64)             default null comment '领取任务的批次标识',
+    error_msg       varchar(500)            default null comment '最近一次失败原因',
+    create_time     datetime                default null,
+    update_time     datetime                default null,
+    unique key uk_out_refund_no (out_refund_no),
+    key idx_order_id (order_id),
+    key idx_status_next_retry_time (status, next_retry_time)
+) comment '订单退款';
@@ -0,0 +1,6 @@
+-- 订单游标分页：按下单时间、id倒序查询，订单号、手机号前缀匹配
+alter table orders
+    add index idx_order_time_id (order_time, id),
+    add index idx_user_id_order_time_id (user_id, order_time, id),
+    add index idx_number (number),
+    add index idx_phone (phone);